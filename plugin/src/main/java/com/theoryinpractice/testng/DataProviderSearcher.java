@@ -20,15 +20,19 @@ import com.intellij.java.indexing.search.searches.MethodReferencesSearchExecutor
 import com.intellij.java.language.codeInsight.AnnotationUtil;
 import com.intellij.java.language.psi.PsiAnnotation;
 import com.intellij.java.language.psi.PsiAnnotationMemberValue;
+import com.intellij.java.language.psi.PsiLiteralExpression;
 import com.intellij.java.language.psi.PsiMethod;
 import com.intellij.java.language.psi.PsiNameValuePair;
+import com.theoryinpractice.testng.util.TestNGDataProviderIndex;
 import consulo.annotation.access.RequiredReadAction;
 import consulo.annotation.component.ExtensionImpl;
-import consulo.application.util.function.Processor;
+import consulo.content.scope.SearchScope;
+import consulo.language.psi.PsiFile;
 import consulo.language.psi.PsiReference;
-import consulo.language.psi.search.UsageSearchContext;
+import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.project.util.query.QueryExecutorBase;
 import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
 import org.jetbrains.annotations.NotNull;
 import org.testng.annotations.DataProvider;
@@ -60,10 +64,42 @@ public class DataProviderSearcher extends QueryExecutorBase<PsiReference, Method
                 PsiAnnotationMemberValue dataProviderMethodName = value.getValue();
                 if (dataProviderMethodName != null) {
                     String providerName = StringUtil.unquoteString(dataProviderMethodName.getText());
-                    queryParameters.getOptimizer()
-                        .searchWord(providerName, queryParameters.getScope(), UsageSearchContext.IN_STRINGS, true, method);
+                    if (!processUsages(method, providerName, queryParameters.getEffectiveSearchScope(), consumer)) {
+                        return;
+                    }
                 }
             }
         }
     }
+
+    /**
+     * Feeds the indexed {@code dataProvider} literals naming the provider that resolve to the method itself, which filters
+     * out same-named providers of other classes. A local scope is looked up in the whole index and checked per file.
+     */
+    @RequiredReadAction
+    private static boolean processUsages(
+        PsiMethod method,
+        String providerName,
+        SearchScope scope,
+        Predicate<? super PsiReference> consumer
+    ) {
+        GlobalSearchScope indexScope = scope instanceof GlobalSearchScope
+            ? (GlobalSearchScope) scope
+            : GlobalSearchScope.allScope(method.getProject());
+        for (PsiLiteralExpression usage : TestNGDataProviderIndex.getInstance(method.getProject()).getUsages(providerName, indexScope)) {
+            if (indexScope != scope) {
+                PsiFile file = usage.getContainingFile();
+                VirtualFile virtualFile = file != null ? file.getVirtualFile() : null;
+                if (virtualFile == null || !scope.contains(virtualFile)) {
+                    continue;
+                }
+            }
+            for (PsiReference reference : usage.getReferences()) {
+                if (reference.isReferenceTo(method) && !consumer.test(reference)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 }
@@ -30,6 +30,7 @@ import com.theoryinpractice.testng.inspection.DependsOnGroupsInspection;
 import com.theoryinpractice.testng.inspection.DependsOnGroupsInspectionState;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.annotation.component.ExtensionImpl;
+import consulo.application.util.CachedValueProvider;
 import consulo.language.Language;
 import consulo.language.editor.completion.CompletionUtilCore;
 import consulo.language.editor.completion.lookup.LookupElementBuilder;
@@ -41,6 +42,7 @@ import consulo.language.pattern.PlatformPatterns;
 import consulo.language.pattern.PsiElementPattern;
 import consulo.language.psi.*;
 import consulo.language.psi.filter.ElementFilter;
+import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.language.psi.util.PsiTreeUtil;
 import consulo.language.util.ProcessingContext;
 import consulo.project.Project;
@@ -54,7 +56,9 @@ import org.testng.annotations.DataProvider;
 
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @ExtensionImpl
 public class TestNGReferenceContributor extends PsiReferenceContributor
@@ -119,11 +123,18 @@ public class TestNGReferenceContributor extends PsiReferenceContributor
 		public PsiElement resolve()
 		{
 			final PsiClass cls = getProviderClass(PsiUtil.getTopLevelClass(getElement()));
-			if(cls != null)
+			return cls != null ? getDataProviders(cls).get(getValue()) : null;
+		}
+
+		/**
+		 * Data provider methods of the class and its supers by provider name and by method name, first declaration wins.
+		 */
+		private static Map<String, PsiMethod> getDataProviders(final PsiClass cls)
+		{
+			return LanguageCachedValueUtil.getCachedValue(cls, () ->
 			{
-				PsiMethod[] methods = cls.getAllMethods();
-				@NonNls String val = getValue();
-				for(PsiMethod method : methods)
+				final Map<String, PsiMethod> providers = new HashMap<String, PsiMethod>();
+				for(PsiMethod method : cls.getAllMethods())
 				{
 					PsiAnnotation dataProviderAnnotation = AnnotationUtil.findAnnotation(method, DataProvider.class.getName());
 					if(dataProviderAnnotation != null)
@@ -134,20 +145,17 @@ public class TestNGReferenceContributor extends PsiReferenceContributor
 							if("name".equals(value.getName()))
 							{
 								final PsiAnnotationMemberValue dataProviderMethodName = value.getValue();
-								if(dataProviderMethodName != null && val.equals(StringUtil.unquoteString(dataProviderMethodName.getText())))
+								if(dataProviderMethodName != null)
 								{
-									return method;
+									providers.putIfAbsent(StringUtil.unquoteString(dataProviderMethodName.getText()), method);
 								}
 							}
 						}
-						if(val.equals(method.getName()))
-						{
-							return method;
-						}
+						providers.putIfAbsent(method.getName(), method);
 					}
 				}
-			}
-			return null;
+				return CachedValueProvider.Result.create(providers, PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT);
+			});
 		}
 
 		@Override
@@ -252,18 +260,26 @@ public class TestNGReferenceContributor extends PsiReferenceContributor
 			@NonNls String val = getValue();
 			final String methodName = StringUtil.getShortName(val);
 			PsiClass cls = getDependsClass(val);
-			if(cls != null)
+			return cls != null ? getTestMethods(cls).get(methodName) : null;
+		}
+
+		/**
+		 * Test methods of the class and its supers by name, first declaration wins.
+		 */
+		private static Map<String, PsiMethod> getTestMethods(final PsiClass cls)
+		{
+			return LanguageCachedValueUtil.getCachedValue(cls, () ->
 			{
-				PsiMethod[] methods = cls.findMethodsByName(methodName, true);
-				for(PsiMethod method : methods)
+				final Map<String, PsiMethod> methods = new HashMap<String, PsiMethod>();
+				for(PsiMethod method : cls.getAllMethods())
 				{
-					if(TestNGUtil.hasTest(method))
+					if(!methods.containsKey(method.getName()) && TestNGUtil.hasTest(method))
 					{
-						return method;
+						methods.put(method.getName(), method);
 					}
 				}
-			}
-			return null;
+				return CachedValueProvider.Result.create(methods, PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT);
+			});
 		}
 
 		@Nullable
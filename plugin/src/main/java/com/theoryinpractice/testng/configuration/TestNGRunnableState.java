@@ -21,6 +21,7 @@ import com.intellij.java.execution.impl.JavaTestFrameworkRunnableState;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.java.language.psi.PsiMethod;
 import com.theoryinpractice.testng.model.TestData;
+import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.container.plugin.PluginManager;
 import consulo.execution.executor.Executor;
 import consulo.execution.runner.ExecutionEnvironment;
@@ -49,6 +50,9 @@ public class TestNGRunnableState extends JavaTestFrameworkRunnableState<TestNGCo
 {
 	private static final Logger LOG = Logger.getInstance("TestNG Runner");
 	private static final String TESTNG_TEST_FRAMEWORK_NAME = "TestNG";
+	private static final String SHARDS_PROPERTY = "consulo.testng.shards";
+	public static final String REPLAY_PROPERTY = "consulo.testng.replay";
+	private static final Set<String> SHARD_ATTRIBUTES = Set.of("groups", "dependsOnGroups", "dependsOnMethods");
 	private final TestNGConfiguration config;
 	private int port;
 
@@ -73,9 +77,33 @@ public class TestNGRunnableState extends JavaTestFrameworkRunnableState<TestNGCo
 	{
 		super.setupProcessHandler(handler);
 
+		if(isReplay())
+		{
+			// the runner streams the saved log instead of running tests, nothing to search for
+			if(myServerSocket != null)
+			{
+				try
+				{
+					myServerSocket.close();
+				}
+				catch(IOException ignored)
+				{
+				}
+			}
+			return;
+		}
 		createSearchingForTestsTask().attachTaskToProcess(handler);
 	}
 
+	/**
+	 * Whether {@code -Dconsulo.testng.replay=<event log>} is set in the VM options; the runner then replays the log,
+	 * captured runner output or a result archive, into the console instead of running tests.
+	 */
+	protected boolean isReplay()
+	{
+		return getConfiguration().getPersistantData().getVMProperty(REPLAY_PROPERTY) != null;
+	}
+
 	@NotNull
 	@Override
 	protected ProcessHandler createHandler(Executor executor) throws ExecutionException
@@ -186,18 +214,19 @@ public class TestNGRunnableState extends JavaTestFrameworkRunnableState<TestNGCo
 		{
 			final Map<Module, List<String>> perModule = new TreeMap<>((o1, o2) -> StringUtil.compare(o1.getName(), o2.getName(), true));
 
-			for(final PsiClass psiClass : classes.keySet())
+			if(getShardCount() > 1)
+			{
+				collectShardedClassesPerModule(classes.keySet(), perModule);
+			}
+			else
 			{
-				final Module module = ModuleUtilCore.findModuleForPsiElement(psiClass);
-				if(module != null)
+				for(final PsiClass psiClass : classes.keySet())
 				{
-					List<String> list = perModule.get(module);
-					if(list == null)
+					final Module module = ModuleUtilCore.findModuleForPsiElement(psiClass);
+					if(module != null)
 					{
-						list = new ArrayList<>();
-						perModule.put(module, list);
+						perModule.computeIfAbsent(module, m -> new ArrayList<>()).add(psiClass.getQualifiedName());
 					}
-					list.add(psiClass.getQualifiedName());
 				}
 			}
 
@@ -212,6 +241,126 @@ public class TestNGRunnableState extends JavaTestFrameworkRunnableState<TestNGCo
 		}
 	}
 
+	@Override
+	protected boolean forkPerModule()
+	{
+		return super.forkPerModule() || getShardCount() > 1;
+	}
+
+	/**
+	 * Number of parallel forks per module requested with {@code -Dconsulo.testng.shards=N} in the VM options;
+	 * the forked runner reads the same property.
+	 */
+	protected int getShardCount()
+	{
+		final String shards = getConfiguration().getPersistantData().getVMProperty(SHARDS_PROPERTY);
+		if(shards != null)
+		{
+			try
+			{
+				return Integer.parseInt(shards.trim());
+			}
+			catch(NumberFormatException e)
+			{
+				return 1;
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Writes classes grouped by dependency component for the forked runner to distribute between shards: classes connected
+	 * through {@code dependsOnGroups} or {@code dependsOnMethods} are written together, components are separated by an empty
+	 * line, and configuration-only classes, which every shard needs, are marked with a leading {@code *}.
+	 */
+	private static void collectShardedClassesPerModule(Collection<PsiClass> classes, Map<Module, List<String>> perModule)
+	{
+		final Map<PsiClass, Map<String, Set<String>>> values = TestNGUtil.collectAnnotationValues(classes, SHARD_ATTRIBUTES, true);
+		final Map<String, PsiClass> byName = new HashMap<>();
+		final Map<String, List<PsiClass>> groupMembers = new HashMap<>();
+		for(PsiClass psiClass : classes)
+		{
+			byName.put(psiClass.getQualifiedName(), psiClass);
+			final Map<String, Set<String>> classValues = values.getOrDefault(psiClass, Collections.emptyMap());
+			for(String group : classValues.getOrDefault("groups", Collections.emptySet()))
+			{
+				groupMembers.computeIfAbsent(group, g -> new ArrayList<>()).add(psiClass);
+			}
+		}
+
+		final Map<PsiClass, PsiClass> components = new HashMap<>();
+		for(Map.Entry<PsiClass, Map<String, Set<String>>> entry : values.entrySet())
+		{
+			for(String group : entry.getValue().getOrDefault("dependsOnGroups", Collections.emptySet()))
+			{
+				for(PsiClass member : groupMembers.getOrDefault(group, Collections.emptyList()))
+				{
+					union(components, entry.getKey(), member);
+				}
+			}
+			for(String method : entry.getValue().getOrDefault("dependsOnMethods", Collections.emptySet()))
+			{
+				final PsiClass dependency = byName.get(StringUtil.getPackageName(method));
+				if(dependency != null)
+				{
+					union(components, entry.getKey(), dependency);
+				}
+			}
+		}
+
+		final Map<Module, Map<PsiClass, List<String>>> componentsPerModule = new LinkedHashMap<>();
+		for(PsiClass psiClass : classes)
+		{
+			final Module module = ModuleUtilCore.findModuleForPsiElement(psiClass);
+			if(module == null)
+			{
+				continue;
+			}
+			if(!TestNGUtil.hasTest(psiClass))
+			{
+				perModule.computeIfAbsent(module, m -> new ArrayList<>()).add("*" + psiClass.getQualifiedName());
+				continue;
+			}
+			componentsPerModule.computeIfAbsent(module, m -> new LinkedHashMap<>())
+					.computeIfAbsent(find(components, psiClass), c -> new ArrayList<>())
+					.add(psiClass.getQualifiedName());
+		}
+		for(Map.Entry<Module, Map<PsiClass, List<String>>> entry : componentsPerModule.entrySet())
+		{
+			final List<String> list = perModule.computeIfAbsent(entry.getKey(), m -> new ArrayList<>());
+			for(List<String> component : entry.getValue().values())
+			{
+				list.addAll(component);
+				list.add("");
+			}
+		}
+	}
+
+	private static PsiClass find(Map<PsiClass, PsiClass> components, PsiClass psiClass)
+	{
+		PsiClass root = psiClass;
+		PsiClass parent;
+		while((parent = components.get(root)) != null && parent != root)
+		{
+			root = parent;
+		}
+		if(root != psiClass)
+		{
+			components.put(psiClass, root);
+		}
+		return root;
+	}
+
+	private static void union(Map<PsiClass, PsiClass> components, PsiClass first, PsiClass second)
+	{
+		final PsiClass firstRoot = find(components, first);
+		final PsiClass secondRoot = find(components, second);
+		if(firstRoot != secondRoot)
+		{
+			components.put(secondRoot, firstRoot);
+		}
+	}
+
 	@NotNull
 	protected String getFrameworkId()
 	{
@@ -66,7 +66,7 @@ public class TestNGTestDiscoveryRunnableState extends TestNGRunnableState
 				final Set<String> patterns = TestDiscoverySearchHelper.search((Project) getProject(), position, data.getChangeList(), getConfiguration().getFrameworkPrefix());
 				final Module module = getConfiguration().getConfigurationModule().getModule();
 				final GlobalSearchScope searchScope = module != null ? GlobalSearchScope.moduleWithDependenciesScope(module) : GlobalSearchScope.projectScope((Project) getProject());
-				TestNGTestPattern.fillTestObjects(myClasses, patterns, TestSearchScope.MODULE_WITH_DEPENDENCIES, getConfiguration(), searchScope);
+				TestNGTestPattern.fillAffectedTestObjects(myClasses, patterns, getConfiguration(), searchScope);
 			}
 
 			@Override
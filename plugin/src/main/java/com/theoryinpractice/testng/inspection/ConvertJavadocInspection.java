@@ -46,7 +46,8 @@ import jakarta.annotation.Nonnull;
  */
 @ExtensionImpl
 public class ConvertJavadocInspection extends BaseJavaLocalInspectionTool {
-    private static final String TESTNG_PREFIX = "testng.";
+    private static final Logger LOG = Logger.getInstance(ConvertJavadocInspection.class);
+    public static final String TESTNG_PREFIX = "testng.";
     private static final LocalizeValue DISPLAY_NAME = LocalizeValue.localizeTODO("Convert TestNG Javadoc to 1.5 annotations");
 
     @Override
@@ -90,8 +91,6 @@ public class ConvertJavadocInspection extends BaseJavaLocalInspectionTool {
     }
 
     private static class ConvertJavadocQuickfix implements LocalQuickFix {
-        private static final Logger LOG = Logger.getInstance("#" + ConvertJavadocQuickfix.class.getName());
-
         @Nonnull
         @Override
         public LocalizeValue getName() {
@@ -103,109 +102,118 @@ public class ConvertJavadocInspection extends BaseJavaLocalInspectionTool {
             if (!TestNGUtil.checkTestNGInClasspath(tag)) {
                 return;
             }
-            final PsiMember member = PsiTreeUtil.getParentOfType(tag, PsiMember.class);
-            LOG.assertTrue(member != null);
-            String annotationName = StringUtil.capitalize(tag.getName().substring(TESTNG_PREFIX.length()));
-            int dash = annotationName.indexOf('-');
-            if (dash > -1) {
-                annotationName =
-                    annotationName.substring(0, dash) + Character.toUpperCase(annotationName.charAt(dash + 1)) + annotationName.substring(
-                        dash + 2);
+            try {
+                JavaCodeStyleManager.getInstance(project).shortenClassReferences(convertTag(tag));
             }
-            annotationName = "org.testng.annotations." + annotationName;
-            final StringBuffer annotationText = new StringBuffer("@");
-            annotationText.append(annotationName);
-            final PsiClass annotationClass =
-                JavaPsiFacade.getInstance(member.getProject()).findClass(annotationName, member.getResolveScope());
-            PsiElement[] dataElements = tag.getDataElements();
-            if (dataElements.length > 1) {
-                annotationText.append('(');
+            catch (IncorrectOperationException e) {
+                Messages.showErrorDialog(project, e.getMessage(), CommonBundle.getErrorTitle());
             }
-            if (annotationClass != null) {
-                for (PsiMethod attribute : annotationClass.getMethods()) {
-                    boolean stripQuotes = false;
-                    PsiType returnType = attribute.getReturnType();
-                    if (returnType instanceof PsiPrimitiveType) {
-                        stripQuotes = true;
+        }
+    }
+
+    /**
+     * Adds the annotation for the tag to its member and removes the tag, and the doc comment once nothing else is left in it.
+     *
+     * @return the added annotation, with fully qualified class references left to shorten
+     */
+    @Nonnull
+    public static PsiElement convertTag(@Nonnull PsiDocTag tag) throws IncorrectOperationException {
+        final PsiMember member = PsiTreeUtil.getParentOfType(tag, PsiMember.class);
+        LOG.assertTrue(member != null);
+        String annotationName = StringUtil.capitalize(tag.getName().substring(TESTNG_PREFIX.length()));
+        int dash = annotationName.indexOf('-');
+        if (dash > -1) {
+            annotationName =
+                annotationName.substring(0, dash) + Character.toUpperCase(annotationName.charAt(dash + 1)) + annotationName.substring(
+                    dash + 2);
+        }
+        annotationName = "org.testng.annotations." + annotationName;
+        final StringBuffer annotationText = new StringBuffer("@");
+        annotationText.append(annotationName);
+        final PsiClass annotationClass =
+            JavaPsiFacade.getInstance(member.getProject()).findClass(annotationName, member.getResolveScope());
+        PsiElement[] dataElements = tag.getDataElements();
+        if (dataElements.length > 1) {
+            annotationText.append('(');
+        }
+        if (annotationClass != null) {
+            for (PsiMethod attribute : annotationClass.getMethods()) {
+                boolean stripQuotes = false;
+                PsiType returnType = attribute.getReturnType();
+                if (returnType instanceof PsiPrimitiveType) {
+                    stripQuotes = true;
+                }
+                for (int i = 0; i < dataElements.length; i++) {
+                    String text = dataElements[i].getText();
+                    int equals = text.indexOf('=');
+                    String value;
+                    final String key = equals == -1 ? text : text.substring(0, equals).trim();
+                    if (!key.equals(attribute.getName())) {
+                        continue;
                     }
-                    for (int i = 0; i < dataElements.length; i++) {
-                        String text = dataElements[i].getText();
-                        int equals = text.indexOf('=');
-                        String value;
-                        final String key = equals == -1 ? text : text.substring(0, equals).trim();
-                        if (!key.equals(attribute.getName())) {
-                            continue;
-                        }
-                        annotationText.append(key).append(" = ");
-                        if (equals == -1) {
-                            //no equals, so we look in the next token
-                            String next = dataElements[++i].getText().trim();
-                            //it's an equals by itself
-                            if (next.length() == 1) {
-                                value = dataElements[++i].getText().trim();
-                            }
-                            else {
-                                //otherwise, it's foo =bar, so we strip equals
-                                value = next.substring(1, next.length()).trim();
-                            }
+                    annotationText.append(key).append(" = ");
+                    if (equals == -1) {
+                        //no equals, so we look in the next token
+                        String next = dataElements[++i].getText().trim();
+                        //it's an equals by itself
+                        if (next.length() == 1) {
+                            value = dataElements[++i].getText().trim();
                         }
                         else {
-                            //check if the value is in the first bit too
-                            if (equals < text.length() - 1) {
-                                //we have stuff after equals, great
-                                value = text.substring(equals + 1, text.length()).trim();
-                            }
-                            else {
-                                //nothing after equals, so we just get the next element
-                                value = dataElements[++i].getText().trim();
-                            }
+                            //otherwise, it's foo =bar, so we strip equals
+                            value = next.substring(1, next.length()).trim();
+                        }
+                    }
+                    else {
+                        //check if the value is in the first bit too
+                        if (equals < text.length() - 1) {
+                            //we have stuff after equals, great
+                            value = text.substring(equals + 1, text.length()).trim();
                         }
-                        if (stripQuotes && value.charAt(0) == '\"') {
-                            value = value.substring(1, value.length() - 1);
+                        else {
+                            //nothing after equals, so we just get the next element
+                            value = dataElements[++i].getText().trim();
                         }
-                        annotationText.append(value);
                     }
+                    if (stripQuotes && value.charAt(0) == '\"') {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    annotationText.append(value);
                 }
             }
+        }
 
-            if (dataElements.length > 1) {
-                annotationText.append(')');
-            }
-
-            try {
-                final PsiElement inserted = member.getModifierList().addBefore(
-                    JavaPsiFacade.getInstance(tag.getProject())
-                        .getElementFactory()
-                        .createAnnotationFromText(annotationText.toString(), member),
-                    member.getModifierList().getFirstChild()
-                );
-                JavaCodeStyleManager.getInstance(project).shortenClassReferences(inserted);
+        if (dataElements.length > 1) {
+            annotationText.append(')');
+        }
 
+        final PsiElement inserted = member.getModifierList().addBefore(
+            JavaPsiFacade.getInstance(tag.getProject())
+                .getElementFactory()
+                .createAnnotationFromText(annotationText.toString(), member),
+            member.getModifierList().getFirstChild()
+        );
 
-                final PsiDocComment docComment = PsiTreeUtil.getParentOfType(tag, PsiDocComment.class);
-                LOG.assertTrue(docComment != null);
-                //cleanup
-                tag.delete();
-                for (PsiElement element : docComment.getChildren()) {
-                    //if it's anything other than a doc token, then it must stay
-                    if (element instanceof PsiWhiteSpace) {
-                        continue;
-                    }
-                    if (!(element instanceof PsiDocToken)) {
-                        return;
-                    }
-                    PsiDocToken docToken = (PsiDocToken) element;
-                    if (docToken.getTokenType() == JavaDocTokenType.DOC_COMMENT_DATA && docToken.getText().trim().length() > 0) {
-                        return;
-                    }
-                }
-                //at this point, our doc don't have non-empty comments, nor any tags, so we can delete it.
-                docComment.delete();
+        final PsiDocComment docComment = PsiTreeUtil.getParentOfType(tag, PsiDocComment.class);
+        LOG.assertTrue(docComment != null);
+        //cleanup
+        tag.delete();
+        for (PsiElement element : docComment.getChildren()) {
+            //if it's anything other than a doc token, then it must stay
+            if (element instanceof PsiWhiteSpace) {
+                continue;
             }
-            catch (IncorrectOperationException e) {
-                Messages.showErrorDialog(project, e.getMessage(), CommonBundle.getErrorTitle());
+            if (!(element instanceof PsiDocToken)) {
+                return inserted;
+            }
+            PsiDocToken docToken = (PsiDocToken) element;
+            if (docToken.getTokenType() == JavaDocTokenType.DOC_COMMENT_DATA && docToken.getText().trim().length() > 0) {
+                return inserted;
             }
         }
+        //at this point, our doc don't have non-empty comments, nor any tags, so we can delete it.
+        docComment.delete();
+        return inserted;
     }
 
 }
@@ -31,6 +31,7 @@ import consulo.language.editor.inspection.LocalInspectionToolSession;
 import consulo.language.editor.inspection.LocalQuickFix;
 import consulo.language.editor.inspection.ProblemDescriptor;
 import consulo.language.editor.inspection.ProblemsHolder;
+import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiElementVisitor;
 import consulo.language.psi.util.PsiTreeUtil;
 import consulo.language.util.IncorrectOperationException;
@@ -40,12 +41,17 @@ import consulo.project.Project;
 import consulo.util.lang.Comparing;
 import jakarta.annotation.Nonnull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Hani Suleiman
  * @since 2005-08-03
  */
 @ExtensionImpl
 public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool {
+    private static final Logger LOG = Logger.getInstance(ConvertOldAnnotationInspection.class);
+    public static final String CONFIGURATION_ANNOTATION_FQN = "org.testng.annotations.Configuration";
     private static final LocalizeValue DISPLAY_NAME = LocalizeValue.localizeTODO("Convert old @Configuration TestNG annotations");
 
     @Override
@@ -82,7 +88,7 @@ public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool
             @Override
             public void visitAnnotation(final PsiAnnotation annotation) {
                 final String qualifiedName = annotation.getQualifiedName();
-                if (Comparing.strEqual(qualifiedName, "org.testng.annotations.Configuration")) {
+                if (Comparing.strEqual(qualifiedName, CONFIGURATION_ANNOTATION_FQN)) {
                     holder.registerProblem(annotation, DISPLAY_NAME.get(), new ConvertOldAnnotationsQuickfix());
                 }
             }
@@ -90,8 +96,6 @@ public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool
     }
 
     private static class ConvertOldAnnotationsQuickfix implements LocalQuickFix {
-        private static final Logger LOG = Logger.getInstance("#" + ConvertOldAnnotationsQuickfix.class.getName());
-
         @Nonnull
         @Override
         public LocalizeValue getName() {
@@ -103,32 +107,11 @@ public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool
             if (!TestNGUtil.checkTestNGInClasspath(annotation)) {
                 return;
             }
-            final PsiModifierList modifierList = PsiTreeUtil.getParentOfType(annotation, PsiModifierList.class);
-            LOG.assertTrue(modifierList != null);
             try {
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeTest", "@org.testng.annotations.BeforeTest");
-                convertOldAnnotationAttributeToAnnotation(
-                    modifierList,
-                    annotation,
-                    "beforeTestClass",
-                    "@org.testng.annotations.BeforeTest"
-                );
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeTestMethod",
-                    "@org.testng.annotations.BeforeMethod"
-                );
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeSuite", "@org.testng.annotations.BeforeSuite");
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeGroups", "@org.testng.annotations.BeforeGroups");
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterTest", "@org.testng.annotations.AfterTest");
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterTestClass", "@org.testng.annotations.AfterTest");
-                convertOldAnnotationAttributeToAnnotation(
-                    modifierList,
-                    annotation,
-                    "afterTestMethod",
-                    "@org.testng.annotations.AfterMethod"
-                );
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterSuite", "@org.testng.annotations.AfterSuite");
-                convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterGroups", "@org.testng.annotations.AfterGroups");
-                annotation.delete();
+                final JavaCodeStyleManager codeStyleManager = JavaCodeStyleManager.getInstance(project);
+                for (PsiElement inserted : convert(annotation)) {
+                    codeStyleManager.shortenClassReferences(inserted);
+                }
             }
             catch (IncorrectOperationException e) {
                 LOG.error(e);
@@ -136,11 +119,36 @@ public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool
         }
     }
 
+    /**
+     * Replaces an {@code @Configuration} annotation with the configuration annotations its attributes stand for.
+     *
+     * @return the added annotations, with fully qualified class references left to shorten
+     */
+    @Nonnull
+    public static List<PsiElement> convert(@Nonnull PsiAnnotation annotation) throws IncorrectOperationException {
+        final PsiModifierList modifierList = PsiTreeUtil.getParentOfType(annotation, PsiModifierList.class);
+        LOG.assertTrue(modifierList != null);
+        final List<PsiElement> inserted = new ArrayList<PsiElement>();
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeTest", "@org.testng.annotations.BeforeTest", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeTestClass", "@org.testng.annotations.BeforeTest", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeTestMethod", "@org.testng.annotations.BeforeMethod", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeSuite", "@org.testng.annotations.BeforeSuite", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "beforeGroups", "@org.testng.annotations.BeforeGroups", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterTest", "@org.testng.annotations.AfterTest", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterTestClass", "@org.testng.annotations.AfterTest", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterTestMethod", "@org.testng.annotations.AfterMethod", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterSuite", "@org.testng.annotations.AfterSuite", inserted);
+        convertOldAnnotationAttributeToAnnotation(modifierList, annotation, "afterGroups", "@org.testng.annotations.AfterGroups", inserted);
+        annotation.delete();
+        return inserted;
+    }
+
     private static void convertOldAnnotationAttributeToAnnotation(
         PsiModifierList modifierList,
         PsiAnnotation annotation,
         String attribute,
-        String newAnnotation
+        String newAnnotation,
+        List<PsiElement> inserted
     ) throws IncorrectOperationException {
 
         PsiAnnotationParameterList list = annotation.getParameterList();
@@ -150,8 +158,7 @@ public class ConvertOldAnnotationInspection extends BaseJavaLocalInspectionTool
                 newAnnotationBuffer.append(newAnnotation).append('(').append(')');
                 final PsiElementFactory factory = JavaPsiFacade.getInstance(annotation.getProject()).getElementFactory();
                 final PsiAnnotation newPsiAnnotation = factory.createAnnotationFromText(newAnnotationBuffer.toString(), modifierList);
-                JavaCodeStyleManager.getInstance(annotation.getProject())
-                    .shortenClassReferences(modifierList.addAfter(newPsiAnnotation, null));
+                inserted.add(modifierList.addAfter(newPsiAnnotation, null));
             }
         }
     }
@@ -17,6 +17,7 @@ package com.theoryinpractice.testng.inspection;
 
 import com.intellij.java.analysis.impl.codeInspection.BaseJavaLocalInspectionTool;
 import com.intellij.java.language.psi.*;
+import com.theoryinpractice.testng.util.TestNGGroupIndex;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.language.editor.inspection.InspectionToolState;
@@ -26,11 +27,9 @@ import consulo.language.editor.inspection.ProblemHighlightType;
 import consulo.language.editor.inspection.scheme.InspectionManager;
 import consulo.language.editor.inspection.scheme.InspectionProfile;
 import consulo.language.editor.inspection.scheme.InspectionProjectProfileManager;
-import consulo.language.psi.PsiElement;
 import consulo.language.psi.SmartPointerManager;
 import consulo.language.psi.SmartPsiElementPointer;
 import consulo.localize.LocalizeValue;
-import consulo.logging.Logger;
 import consulo.project.Project;
 
 import jakarta.annotation.Nonnull;
@@ -38,8 +37,6 @@ import jakarta.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Hani Suleiman
@@ -47,8 +44,6 @@ import java.util.regex.Pattern;
  */
 @ExtensionImpl
 public class DependsOnGroupsInspection extends BaseJavaLocalInspectionTool<DependsOnGroupsInspectionState> {
-    private static final Logger LOGGER = Logger.getInstance("TestNG Runner");
-    private static final Pattern PATTERN = Pattern.compile("\"([a-zA-Z0-9_\\-\\(\\)]*)\"");
     private static final ProblemDescriptor[] EMPTY = new ProblemDescriptor[0];
 
     public static String SHORT_NAME = "groupsTestNG";
@@ -98,47 +93,27 @@ public class DependsOnGroupsInspection extends BaseJavaLocalInspectionTool<Depen
             return EMPTY;
         }
 
+        final TestNGGroupIndex groupIndex = TestNGGroupIndex.getInstance(psiClass.getProject());
+        final PsiConstantEvaluationHelper evaluationHelper = JavaPsiFacade.getInstance(psiClass.getProject()).getConstantEvaluationHelper();
         List<ProblemDescriptor> problemDescriptors = new ArrayList<ProblemDescriptor>();
         for (PsiAnnotation annotation : annotations) {
-
-            PsiNameValuePair dep = null;
-            PsiNameValuePair[] params = annotation.getParameterList().getAttributes();
-            for (PsiNameValuePair param : params) {
-                if (param.getName() != null && param.getName().matches("(groups|dependsOnGroups)")) {
-                    dep = param;
-                    break;
+            for (PsiNameValuePair param : annotation.getParameterList().getAttributes()) {
+                if (!"dependsOnGroups".equals(param.getName())) {
+                    continue;
                 }
-            }
-
-            if (dep != null) {
-                final PsiAnnotationMemberValue value = dep.getValue();
-                if (value != null) {
-                    LOGGER.info("Found " + dep.getName() + " with: " + value.getText());
-                    String text = value.getText();
-                    if (value instanceof PsiReferenceExpression) {
-                        final PsiElement resolve = ((PsiReferenceExpression) value).resolve();
-                        if (resolve instanceof PsiField &&
-                            ((PsiField) resolve).hasModifierProperty(PsiModifier.STATIC) &&
-                            ((PsiField) resolve).hasModifierProperty(PsiModifier.FINAL)) {
-                            final PsiExpression initializer = ((PsiField) resolve).getInitializer();
-                            if (initializer != null) {
-                                text = initializer.getText();
-                            }
-                        }
-                    }
-                    Matcher matcher = PATTERN.matcher(text);
-                    while (matcher.find()) {
-                        String methodName = matcher.group(1);
-                        if (!state.groups.contains(methodName)) {
-                            LOGGER.info("group doesn't exist:" + methodName);
-                            ProblemDescriptor descriptor =
-                                manager.createProblemDescriptor(annotation, "Group '" + methodName + "' is undefined.",
-                                    new GroupNameQuickFix(methodName, psiClass),
-                                    ProblemHighlightType.GENERIC_ERROR_OR_WARNING, isOnTheFly
-                                );
-                            problemDescriptors.add(descriptor);
-
-                        }
+                final PsiAnnotationMemberValue value = param.getValue();
+                final PsiAnnotationMemberValue[] values = value instanceof PsiArrayInitializerMemberValue
+                    ? ((PsiArrayInitializerMemberValue) value).getInitializers()
+                    : new PsiAnnotationMemberValue[]{value};
+                for (PsiAnnotationMemberValue groupValue : values) {
+                    final Object group = groupValue instanceof PsiExpression ? evaluationHelper.computeConstantExpression(groupValue) : null;
+                    if (group instanceof String && !groupIndex.isDeclared((String) group, psiClass) && !state.groups.contains(group)) {
+                        ProblemDescriptor descriptor =
+                            manager.createProblemDescriptor(annotation, "Group '" + group + "' is undefined.",
+                                new GroupNameQuickFix((String) group, psiClass),
+                                ProblemHighlightType.GENERIC_ERROR_OR_WARNING, isOnTheFly
+                            );
+                        problemDescriptors.add(descriptor);
                     }
                 }
             }
@@ -16,7 +16,9 @@
 package com.theoryinpractice.testng.inspection;
 
 import com.intellij.java.analysis.impl.codeInspection.BaseJavaLocalInspectionTool;
+import com.intellij.java.language.codeInsight.AnnotationUtil;
 import com.intellij.java.language.psi.*;
+import com.theoryinpractice.testng.util.TestNGDependencyGraph;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.language.editor.inspection.LocalQuickFix;
@@ -41,7 +43,7 @@ import java.util.regex.Pattern;
 @ExtensionImpl
 public class DependsOnMethodInspection extends BaseJavaLocalInspectionTool<Object> {
     private static final Logger LOGGER = Logger.getInstance("TestNG Runner");
-    private static final Pattern PATTERN = Pattern.compile("\"([a-zA-Z1-9_\\(\\)]*)\"");
+    private static final Pattern PATTERN = Pattern.compile("\"([\\w$.\\(\\)]*)\"");
     private static final ProblemDescriptor[] EMPTY = new ProblemDescriptor[0];
 
     @Nonnull
@@ -122,9 +124,37 @@ public class DependsOnMethodInspection extends BaseJavaLocalInspectionTool<Objec
             }
         }
 
+        for (PsiMethod method : psiClass.getMethods()) {
+            final String problem = TestNGDependencyGraph.getProblem(method);
+            if (problem != null) {
+                final PsiElement element = getProblemElement(method);
+                if (element != null) {
+                    problemDescriptors.add(manager.createProblemDescriptor(element, problem, (LocalQuickFix) null,
+                        ProblemHighlightType.GENERIC_ERROR_OR_WARNING, isOnTheFly
+                    ));
+                }
+            }
+        }
+
         return problemDescriptors.toArray(new ProblemDescriptor[]{});
     }
 
+    /**
+     * @return the dependsOnMethods or dependsOnGroups attribute of the method, or its name if the dependency is inherited
+     */
+    @Nullable
+    private static PsiElement getProblemElement(PsiMethod method) {
+        final PsiAnnotation annotation = AnnotationUtil.findAnnotation(method, TestNGUtil.TEST_ANNOTATION_FQN);
+        if (annotation != null) {
+            for (PsiNameValuePair pair : annotation.getParameterList().getAttributes()) {
+                if ("dependsOnMethods".equals(pair.getName()) || "dependsOnGroups".equals(pair.getName())) {
+                    return pair;
+                }
+            }
+        }
+        return method.getNameIdentifier();
+    }
+
     private static void checkMethodNameDependency(
         InspectionManager manager,
         PsiClass psiClass,
@@ -146,7 +176,8 @@ public class DependsOnMethodInspection extends BaseJavaLocalInspectionTool<Objec
             problemDescriptors.add(descriptor);
 
         }
-        else {
+        else if (methodName.indexOf('.') < 0 && TestNGUtil.getDependencyPattern(methodName) == null) {
+            // qualified names and regular expressions are resolved across the project by TestNGDependencyGraph
             PsiMethod[] foundMethods = psiClass.findMethodsByName(methodName, true);
 
             if (foundMethods.length == 0) {
@@ -20,16 +20,20 @@ import com.intellij.java.language.codeInsight.AnnotationUtil;
 import com.intellij.java.language.psi.*;
 import com.intellij.java.language.psi.util.InheritanceUtil;
 import consulo.annotation.component.ExtensionImpl;
+import consulo.application.util.CachedValueProvider;
 import consulo.language.editor.inspection.LocalInspectionToolSession;
 import consulo.language.editor.inspection.ProblemsHolder;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiElementVisitor;
+import consulo.language.psi.PsiModificationTracker;
+import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.localize.LocalizeValue;
 import consulo.project.Project;
 import consulo.project.content.scope.ProjectScopes;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -109,7 +113,7 @@ public class ExpectedExceptionNeverThrownTestNGInspection extends BaseJavaLocalI
             if (InheritanceUtil.isInheritor(aClass, CommonClassNames.JAVA_LANG_RUNTIME_EXCEPTION)) {
                 return;
             }
-            final Set<PsiClassType> exceptionsThrown = calculateExceptionsThrown(body);
+            final Set<PsiClassType> exceptionsThrown = getExceptionsThrown(method);
             if (exceptionsThrown.contains(classType)) {
                 return;
             }
@@ -120,6 +124,22 @@ public class ExpectedExceptionNeverThrownTestNGInspection extends BaseJavaLocalI
         }
     }
 
+    /**
+     * Checked exceptions thrown by the body of the method, cached until its file or any Java structure changes.
+     */
+    @Nonnull
+    public static Set<PsiClassType> getExceptionsThrown(@Nonnull PsiMethod method) {
+        return LanguageCachedValueUtil.getCachedValue(method, () -> {
+            final PsiCodeBlock body = method.getBody();
+            final Set<PsiClassType> exceptionsThrown = body != null ? calculateExceptionsThrown(body) : Collections.<PsiClassType>emptySet();
+            return CachedValueProvider.Result.create(
+                Collections.unmodifiableSet(exceptionsThrown),
+                method.getContainingFile(),
+                PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT
+            );
+        });
+    }
+
     @Nonnull
     public static Set<PsiClassType> calculateExceptionsThrown(@Nonnull PsiElement element) {
         final ExceptionsThrownVisitor visitor = new ExceptionsThrownVisitor();
@@ -201,17 +221,30 @@ public class ExpectedExceptionNeverThrownTestNGInspection extends BaseJavaLocalI
         }
 
         private static void collectExceptionsThrown(@Nullable PsiMethod method, @Nonnull Set<PsiClassType> out) {
-            if (method == null) {
-                return;
+            if (method != null) {
+                out.addAll(getDeclaredExceptions(method));
             }
-            final PsiElementFactory factory = JavaPsiFacade.getElementFactory(method.getProject());
-            final PsiJavaCodeReferenceElement[] referenceElements = method.getThrowsList().getReferenceElements();
-            for (PsiJavaCodeReferenceElement referenceElement : referenceElements) {
-                final PsiClass exceptionClass = (PsiClass) referenceElement.resolve();
-                if (exceptionClass != null) {
-                    out.add(factory.createType(exceptionClass));
+        }
+
+        /**
+         * Resolved throws list of a called method; the same helpers are called from many tests, so it is cached.
+         */
+        private static Set<PsiClassType> getDeclaredExceptions(@Nonnull PsiMethod method) {
+            return LanguageCachedValueUtil.getCachedValue(method, () -> {
+                final Set<PsiClassType> out = new HashSet<PsiClassType>(4);
+                final PsiElementFactory factory = JavaPsiFacade.getElementFactory(method.getProject());
+                final PsiJavaCodeReferenceElement[] referenceElements = method.getThrowsList().getReferenceElements();
+                for (PsiJavaCodeReferenceElement referenceElement : referenceElements) {
+                    final PsiClass exceptionClass = (PsiClass) referenceElement.resolve();
+                    if (exceptionClass != null) {
+                        out.add(factory.createType(exceptionClass));
+                    }
                 }
-            }
+                return CachedValueProvider.Result.create(
+                    out.isEmpty() ? Collections.<PsiClassType>emptySet() : out,
+                    PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT
+                );
+            });
         }
 
         @Nullable
@@ -1,58 +0,0 @@
-/*
- * Copyright 2000-2011 JetBrains s.r.o.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.theoryinpractice.testng.inspection;
-
-import com.theoryinpractice.testng.util.TestNGUtil;
-import consulo.language.psi.scope.GlobalSearchScope;
-import consulo.module.Module;
-import consulo.module.content.ProjectFileIndex;
-import consulo.module.content.ProjectRootManager;
-import consulo.project.Project;
-import consulo.virtualFileSystem.VirtualFile;
-import org.jetbrains.annotations.NotNull;
-
-/**
- * User: anna
- */
-public class TestNGSearchScope extends GlobalSearchScope
-{
-	private final ProjectFileIndex myFileIndex;
-
-	public TestNGSearchScope(Project project)
-	{
-		myFileIndex = ProjectRootManager.getInstance(project).getFileIndex();
-	}
-
-	public boolean contains(VirtualFile file)
-	{
-		return myFileIndex.isInContent(file) && TestNGUtil.isTestngXML(file);
-	}
-
-	public int compare(VirtualFile file1, VirtualFile file2)
-	{
-		return 0;
-	}
-
-	public boolean isSearchInModuleContent(@NotNull Module aModule)
-	{
-		return true;
-	}
-
-	public boolean isSearchInLibraries()
-	{
-		return false;
-	}
-}
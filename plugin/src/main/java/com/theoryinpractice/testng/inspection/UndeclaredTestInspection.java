@@ -23,8 +23,10 @@ package com.theoryinpractice.testng.inspection;
 import com.intellij.java.analysis.impl.codeInspection.BaseJavaLocalInspectionTool;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.java.language.psi.PsiIdentifier;
+import com.intellij.java.language.psi.PsiJavaFile;
 import com.intellij.java.language.psi.util.PsiClassUtil;
 import com.theoryinpractice.testng.configuration.browser.SuiteBrowser;
+import com.theoryinpractice.testng.util.TestNGSuiteIndex;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.Result;
@@ -39,8 +41,6 @@ import consulo.language.psi.PsiDirectory;
 import consulo.language.psi.PsiFile;
 import consulo.language.psi.PsiFileFactory;
 import consulo.language.psi.PsiManager;
-import consulo.language.psi.search.PsiNonJavaFileReferenceProcessor;
-import consulo.language.psi.search.PsiSearchHelper;
 import consulo.language.psi.util.PsiTreeUtil;
 import consulo.language.util.IncorrectOperationException;
 import consulo.localize.LocalizeValue;
@@ -49,16 +49,12 @@ import consulo.project.Project;
 import consulo.virtualFileSystem.LocalFileSystem;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.xml.ide.highlighter.XmlFileType;
-import consulo.xml.psi.xml.XmlAttribute;
 import consulo.xml.psi.xml.XmlFile;
 import consulo.xml.psi.xml.XmlTag;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 import javax.swing.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
 @ExtensionImpl
 public class UndeclaredTestInspection extends BaseJavaLocalInspectionTool {
@@ -102,48 +98,10 @@ public class UndeclaredTestInspection extends BaseJavaLocalInspectionTool {
                 return null;
             }
 
-            final List<String> names = new ArrayList<String>();
-            for (int i = 0; i < qName.length(); i++) {
-                if (qName.charAt(i) == '.') {
-                    names.add(qName.substring(0, i));
-                }
-            }
-            names.add(qName);
-            Collections.reverse(names);
-
-            for (final String name : names) {
-                final boolean isFullName = qName.equals(name);
-                final boolean[] found = new boolean[]{false};
-                PsiSearchHelper.SERVICE.getInstance(project).processUsagesInNonJavaFiles(name, new PsiNonJavaFileReferenceProcessor() {
-                    @Override
-                    public boolean process(final PsiFile file, final int startOffset, final int endOffset) {
-                        if (file.findReferenceAt(startOffset) != null) {
-                            if (!isFullName) { //special package tag required
-                                final XmlTag tag = PsiTreeUtil.getParentOfType(file.findElementAt(startOffset), XmlTag.class);
-                                if (tag == null || !tag.getName().equals("package")) {
-                                    return true;
-                                }
-                                final XmlAttribute attribute = tag.getAttribute("name");
-                                if (attribute == null) {
-                                    return true;
-                                }
-                                final String value = attribute.getValue();
-                                if (value == null) {
-                                    return true;
-                                }
-                                if (!value.endsWith(".*")) {
-                                    return true;
-                                }
-                            }
-                            found[0] = true;
-                            return false;
-                        }
-                        return true;
-                    }
-                }, new TestNGSearchScope(project));
-                if (found[0]) {
-                    return null;
-                }
+            final PsiFile containingFile = aClass.getContainingFile();
+            final String packageName = containingFile instanceof PsiJavaFile ? ((PsiJavaFile) containingFile).getPackageName() : "";
+            if (TestNGSuiteIndex.getInstance(project).isDeclared(qName, packageName)) {
+                return null;
             }
             final PsiIdentifier nameIdentifier = aClass.getNameIdentifier();
             LOG.assertTrue(nameIdentifier != null);
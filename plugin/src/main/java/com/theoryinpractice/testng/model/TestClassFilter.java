@@ -10,7 +10,10 @@ import com.intellij.java.language.psi.PsiParameter;
 import com.intellij.java.language.util.ClassFilter;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.application.ReadAction;
+import consulo.application.util.CachedValueProvider;
+import consulo.language.psi.PsiModificationTracker;
 import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.project.Project;
 
 import java.util.Arrays;
@@ -60,27 +63,9 @@ public class TestClassFilter implements ClassFilter.ClassFilterWithScope
 			boolean hasTest = TestNGUtil.hasTest(psiClass);
 			if(hasTest)
 			{
-				if(checkClassCanBeInstantiated)
+				if(checkClassCanBeInstantiated && !canBeInstantiated(psiClass))
 				{
-					final PsiMethod[] constructors = psiClass.getConstructors();
-					if(constructors.length > 0)
-					{
-						boolean canBeInstantiated = false;
-						for(PsiMethod constructor : constructors)
-						{
-							PsiParameter[] parameters = constructor.getParameterList().getParameters();
-							if(parameters.length == 0 || AnnotationUtil.isAnnotated(constructor, INJECTION_ANNOTATIONS, AnnotationUtil.CHECK_HIERARCHY) || parameters.length == 1 && parameters[0]
-									.getType().equalsToText(CommonClassNames.JAVA_LANG_STRING))
-							{
-								canBeInstantiated = true;
-								break;
-							}
-						}
-						if(!canBeInstantiated && !AnnotationUtil.isAnnotated(psiClass, GUICE, 0))
-						{
-							return false;
-						}
-					}
+					return false;
 				}
 				return true;
 			}
@@ -89,6 +74,36 @@ public class TestClassFilter implements ClassFilter.ClassFilterWithScope
 		});
 	}
 
+	/**
+	 * Whether TestNG is able to create the class: it has no explicit constructors, a no-arg or {@code String} constructor,
+	 * an injected or factory constructor, or is instantiated by Guice. Shared by all filters and kept until the next Java
+	 * structure change.
+	 */
+	public static boolean canBeInstantiated(final PsiClass psiClass)
+	{
+		return LanguageCachedValueUtil.getCachedValue(psiClass, () -> CachedValueProvider.Result.create(computeCanBeInstantiated(psiClass), PsiModificationTracker
+				.JAVA_STRUCTURE_MODIFICATION_COUNT));
+	}
+
+	private static boolean computeCanBeInstantiated(PsiClass psiClass)
+	{
+		final PsiMethod[] constructors = psiClass.getConstructors();
+		if(constructors.length == 0)
+		{
+			return true;
+		}
+		for(PsiMethod constructor : constructors)
+		{
+			PsiParameter[] parameters = constructor.getParameterList().getParameters();
+			if(parameters.length == 0 || AnnotationUtil.isAnnotated(constructor, INJECTION_ANNOTATIONS, AnnotationUtil.CHECK_HIERARCHY) || parameters.length == 1 && parameters[0]
+					.getType().equalsToText(CommonClassNames.JAVA_LANG_STRING))
+			{
+				return true;
+			}
+		}
+		return AnnotationUtil.isAnnotated(psiClass, GUICE, 0);
+	}
+
 	public Project getProject()
 	{
 		return project;
@@ -13,7 +13,9 @@ import consulo.execution.action.Location;
 import consulo.execution.configuration.ExternalizablePath;
 import consulo.execution.test.TestSearchScope;
 import consulo.module.Module;
+import consulo.process.cmd.ParametersList;
 import consulo.util.lang.Comparing;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -100,6 +102,27 @@ public class TestData implements Cloneable
 		return VM_PARAMETERS;
 	}
 
+	/**
+	 * @return value of a {@code -Dname=value} system property from the VM parameters, or null if it is not set
+	 */
+	@Nullable
+	public String getVMProperty(String name)
+	{
+		if(VM_PARAMETERS == null)
+		{
+			return null;
+		}
+		final String prefix = "-D" + name + "=";
+		for(String parameter : ParametersList.parse(VM_PARAMETERS))
+		{
+			if(parameter.startsWith(prefix))
+			{
+				return parameter.substring(prefix.length());
+			}
+		}
+		return null;
+	}
+
 	public void setProgramParameters(String value)
 	{
 		PARAMETERS = value;
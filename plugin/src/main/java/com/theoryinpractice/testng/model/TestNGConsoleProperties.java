@@ -18,6 +18,7 @@ package com.theoryinpractice.testng.model;
 import com.intellij.java.execution.impl.testframework.JavaAwareTestConsoleProperties;
 import com.intellij.java.execution.impl.testframework.JavaTestLocator;
 import com.theoryinpractice.testng.configuration.TestNGConfiguration;
+import com.theoryinpractice.testng.configuration.TestNGRunnableState;
 import com.theoryinpractice.testng.ui.actions.RerunFailedTestsAction;
 import consulo.execution.executor.Executor;
 import consulo.execution.test.SourceScope;
@@ -77,6 +78,11 @@ public class TestNGConsoleProperties extends JavaAwareTestConsoleProperties<Test
 	@Override
 	public AbstractRerunFailedTestsAction createRerunFailedTestsAction(ConsoleView consoleView)
 	{
+		if(getConfiguration().getPersistantData().getVMProperty(TestNGRunnableState.REPLAY_PROPERTY) != null)
+		{
+			// a replayed log would be replayed again
+			return null;
+		}
 		return new RerunFailedTestsAction(consoleView, this);
 	}
 }
@@ -329,6 +329,11 @@ public abstract class TestNGTestObject
 	public static void collectTestMethods(Map<PsiClass, Map<PsiMethod, List<String>>> classes, final PsiClass psiClass, final String methodName, final GlobalSearchScope searchScope)
 	{
 		final PsiMethod[] methods = ReadAction.compute(() -> psiClass.findMethodsByName(methodName, true));
+		collectTestMethods(classes, psiClass, methods, searchScope);
+	}
+
+	public static void collectTestMethods(Map<PsiClass, Map<PsiMethod, List<String>>> classes, final PsiClass psiClass, final PsiMethod[] methods, final GlobalSearchScope searchScope)
+	{
 		calculateDependencies(methods, classes, searchScope, psiClass);
 		Map<PsiMethod, List<String>> psiMethods = classes.get(psiClass);
 		if(psiMethods == null)
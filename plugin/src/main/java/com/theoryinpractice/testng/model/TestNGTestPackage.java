@@ -16,7 +16,6 @@
 package com.theoryinpractice.testng.model;
 
 import com.intellij.java.language.psi.*;
-import com.intellij.java.language.psi.search.PackageScope;
 import com.theoryinpractice.testng.configuration.TestNGConfiguration;
 import com.theoryinpractice.testng.util.TestNGUtil;
 import consulo.application.ReadAction;
@@ -28,6 +27,7 @@ import consulo.language.psi.PsiDirectory;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiPackage;
 import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.module.Module;
 import consulo.util.lang.Comparing;
 
 import java.util.List;
@@ -52,12 +52,19 @@ public class TestNGTestPackage extends TestNGTestObject
 		else
 		{
 			TestSearchScope scope = myConfig.getPersistantData().getScope();
-			//TODO we should narrow this down by module really, if that's what's specified
-			SourceScope sourceScope = scope.getSourceScope(myConfig);
-			TestClassFilter projectFilter = new TestClassFilter(sourceScope != null ? sourceScope.getGlobalSearchScope() : GlobalSearchScope.projectScope(myConfig.getProject()), myConfig.getProject
-					(), true, true);
-			TestClassFilter filter = projectFilter.intersectionWith(PackageScope.packageScope((PsiJavaPackage) psiPackage, true));
-			calculateDependencies(null, classes, getSearchScope(), TestNGUtil.getAllTestClasses(filter, false));
+			final Module module = myConfig.getConfigurationModule().getModule();
+			final GlobalSearchScope searchScope;
+			if(module != null && scope == TestSearchScope.SINGLE_MODULE)
+			{
+				searchScope = GlobalSearchScope.moduleScope(module);
+			}
+			else
+			{
+				SourceScope sourceScope = scope.getSourceScope(myConfig);
+				searchScope = sourceScope != null ? sourceScope.getGlobalSearchScope() : GlobalSearchScope.projectScope(myConfig.getProject());
+			}
+			TestClassFilter filter = new TestClassFilter(searchScope, myConfig.getProject(), true, true);
+			calculateDependencies(null, classes, getSearchScope(), TestNGUtil.getAllTestClasses(filter, (PsiJavaPackage) psiPackage, true));
 			if(classes.size() == 0)
 			{
 				throw new CantRunException("No tests found in the package \"" + packageName + '\"');
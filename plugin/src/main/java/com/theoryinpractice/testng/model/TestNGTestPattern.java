@@ -30,12 +30,10 @@ import consulo.execution.test.TestSearchScope;
 import consulo.language.psi.PsiManager;
 import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.logging.Logger;
+import consulo.util.collection.ContainerUtil;
 import consulo.util.lang.StringUtil;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -62,6 +60,7 @@ public class TestNGTestPattern extends TestNGTestObject
 			final ModuleBasedConfiguration config,
 			final GlobalSearchScope searchScope) throws CantRunException
 	{
+		final Set<String> unresolved = new LinkedHashSet<>();
 		for(final String pattern : patterns)
 		{
 			final String className;
@@ -97,22 +96,21 @@ public class TestNGTestPattern extends TestNGTestObject
 					throw new CantRunException("No tests found in class " + className);
 				}
 			}
+			else
+			{
+				unresolved.add(pattern);
+			}
 		}
-		if(classes.size() != patterns.size())
+		if(!unresolved.isEmpty())
 		{
-			final List<Pattern> compilePatterns = new ArrayList<>();
-			for(String p : patterns)
+			final PatternMatcher matcher = new PatternMatcher(unresolved);
+			if(matcher.isEmpty())
 			{
-				final Pattern compilePattern;
-				try
-				{
-					compilePattern = Pattern.compile(p);
-				}
-				catch(PatternSyntaxException e)
+				if(classes.size() == 0)
 				{
-					continue;
+					throw new CantRunException("No tests found in for patterns \"" + StringUtil.join(patterns, " || ") + '\"');
 				}
-				compilePatterns.add(compilePattern);
+				return;
 			}
 			final SourceScope sourceScope = testSearchScope.getSourceScope(config);
 			TestClassFilter projectFilter = new TestClassFilter(sourceScope != null ? sourceScope.getGlobalSearchScope() : GlobalSearchScope.allScope(config.getProject()), config.getProject(), true,
@@ -121,19 +119,9 @@ public class TestNGTestPattern extends TestNGTestObject
 				@Override
 				public boolean isAccepted(PsiClass psiClass)
 				{
-					if(super.isAccepted(psiClass))
-					{
-						final String qualifiedName = ReadAction.compute(psiClass::getQualifiedName);
-						LOG.assertTrue(qualifiedName != null);
-						for(Pattern pattern : compilePatterns)
-						{
-							if(pattern.matcher(qualifiedName).matches())
-							{
-								return true;
-							}
-						}
-					}
-					return false;
+					final String qualifiedName = ReadAction.compute(psiClass::getQualifiedName);
+					LOG.assertTrue(qualifiedName != null);
+					return matcher.matches(qualifiedName) && super.isAccepted(psiClass);
 				}
 			};
 			calculateDependencies(null, classes, searchScope, TestNGUtil.getAllTestClasses(projectFilter, false));
@@ -144,6 +132,79 @@ public class TestNGTestPattern extends TestNGTestObject
 		}
 	}
 
+	/**
+	 * Builds a minimal suite from exact {@code Class[,method]} names, e.g. the tests affected by a change as reported by test
+	 * discovery. Names are grouped by class and resolved in a single read action. Names which no longer resolve to a test are
+	 * skipped as stale instead of failing the run or falling back to a project-wide pattern scan.
+	 */
+	public static void fillAffectedTestObjects(final Map<PsiClass, Map<PsiMethod, List<String>>> classes,
+			final Set<String> names,
+			final ModuleBasedConfiguration config,
+			final GlobalSearchScope searchScope) throws CantRunException
+	{
+		final Set<String> wholeClasses = new HashSet<>();
+		final Map<String, Set<String>> methodsByClass = new LinkedHashMap<>();
+		for(String name : names)
+		{
+			final boolean hasMethod = name.contains(",");
+			final String className = (hasMethod ? StringUtil.getPackageName(name, ',') : name).replace('/', '.');
+			final Set<String> methodNames = methodsByClass.computeIfAbsent(className, c -> new LinkedHashSet<>());
+			if(hasMethod)
+			{
+				methodNames.add(StringUtil.getShortName(name, ','));
+			}
+			else
+			{
+				wholeClasses.add(className);
+			}
+		}
+
+		final Map<PsiClass, PsiMethod[]> affected = new LinkedHashMap<>();
+		ReadAction.run(() ->
+		{
+			final PsiManager manager = PsiManager.getInstance(config.getProject());
+			for(Map.Entry<String, Set<String>> entry : methodsByClass.entrySet())
+			{
+				final PsiClass psiClass = ClassUtil.findPsiClass(manager, entry.getKey(), null, true, searchScope);
+				if(psiClass == null || !TestNGUtil.hasTest(psiClass))
+				{
+					LOG.debug("Skipping stale test reference " + entry.getKey());
+					continue;
+				}
+				if(wholeClasses.contains(entry.getKey()))
+				{
+					affected.put(psiClass, null);
+					continue;
+				}
+				final List<PsiMethod> methods = new ArrayList<>();
+				for(String methodName : entry.getValue())
+				{
+					ContainerUtil.addAll(methods, psiClass.findMethodsByName(methodName, true));
+				}
+				if(!methods.isEmpty())
+				{
+					affected.put(psiClass, methods.toArray(PsiMethod.EMPTY_ARRAY));
+				}
+			}
+		});
+
+		for(Map.Entry<PsiClass, PsiMethod[]> entry : affected.entrySet())
+		{
+			if(entry.getValue() == null)
+			{
+				calculateDependencies(null, classes, searchScope, entry.getKey());
+			}
+			else
+			{
+				collectTestMethods(classes, entry.getKey(), entry.getValue(), searchScope);
+			}
+		}
+		if(classes.isEmpty())
+		{
+			throw new CantRunException("No affected tests found");
+		}
+	}
+
 	@Override
 	public String getGeneratedName()
 	{
@@ -171,4 +232,158 @@ public class TestNGTestPattern extends TestNGTestObject
 			throw new RuntimeConfigurationWarning("No pattern selected");
 		}
 	}
+	/**
+	 * Matches qualified class names against patterns that could not be resolved to a class directly.
+	 * Literal names are looked up in a hash set, {@code literal.*} patterns are treated as prefixes and walked in a trie,
+	 * everything else is folded into a single alternation, so a class name is matched with one {@link java.util.regex.Matcher}
+	 * instead of one per pattern. The alternation still tries its branches in turn, so the cost of a regex match keeps
+	 * growing with the number of regex patterns.
+	 */
+	static class PatternMatcher
+	{
+		private static final Pattern LITERAL = Pattern.compile("[\\w.$/]+");
+		private static final String ANY_SUFFIX = ".*";
+
+		private final Set<String> myExactNames = new HashSet<>();
+		private final PrefixNode myPrefixes = new PrefixNode();
+		private boolean myHasPrefixes;
+		private final List<Pattern> myRegexps = new ArrayList<>();
+
+		PatternMatcher(Collection<String> patterns)
+		{
+			final List<String> regexps = new ArrayList<>();
+			for(String p : patterns)
+			{
+				if(LITERAL.matcher(p).matches())
+				{
+					myExactNames.add(normalize(p));
+				}
+				else if(p.endsWith(ANY_SUFFIX) && LITERAL.matcher(p.substring(0, p.length() - ANY_SUFFIX.length())).matches())
+				{
+					myPrefixes.add(normalize(p.substring(0, p.length() - ANY_SUFFIX.length())));
+					myHasPrefixes = true;
+				}
+				else
+				{
+					final Pattern pattern;
+					try
+					{
+						pattern = Pattern.compile(p);
+					}
+					catch(PatternSyntaxException e)
+					{
+						continue;
+					}
+					if(hasNumberedBackReference(p))
+					{
+						// group numbers shift inside the alternation, which would silently change what \\1 refers to
+						myRegexps.add(pattern);
+					}
+					else
+					{
+						regexps.add(p);
+					}
+				}
+			}
+			if(regexps.size() > 1)
+			{
+				try
+				{
+					myRegexps.add(Pattern.compile(StringUtil.join(regexps, p -> "(?:" + p + ")", "|")));
+					return;
+				}
+				catch(PatternSyntaxException ignored)
+				{
+					// the same named group declared by two patterns, keep them apart
+				}
+			}
+			for(String p : regexps)
+			{
+				myRegexps.add(Pattern.compile(p));
+			}
+		}
+
+		static boolean hasNumberedBackReference(String regexp)
+		{
+			for(int i = 0; i < regexp.length() - 1; i++)
+			{
+				if(regexp.charAt(i) == '\\')
+				{
+					final char next = regexp.charAt(++i);
+					if(next >= '1' && next <= '9')
+					{
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private static String normalize(String name)
+		{
+			return name.replace('/', '.').replace('$', '.');
+		}
+
+		boolean isEmpty()
+		{
+			return myExactNames.isEmpty() && !myHasPrefixes && myRegexps.isEmpty();
+		}
+
+		boolean matches(String qualifiedName)
+		{
+			if(myExactNames.contains(qualifiedName))
+			{
+				return true;
+			}
+			if(myHasPrefixes && myPrefixes.hasPrefixOf(qualifiedName))
+			{
+				return true;
+			}
+			for(Pattern pattern : myRegexps)
+			{
+				if(pattern.matcher(qualifiedName).matches())
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class PrefixNode
+	{
+		private final Map<Character, PrefixNode> myChildren = new HashMap<>();
+		private boolean myTerminal;
+
+		void add(String prefix)
+		{
+			PrefixNode node = this;
+			for(int i = 0; i < prefix.length(); i++)
+			{
+				node = node.myChildren.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+			}
+			node.myTerminal = true;
+		}
+
+		boolean hasPrefixOf(String name)
+		{
+			PrefixNode node = this;
+			for(int i = 0; ; i++)
+			{
+				if(node.myTerminal)
+				{
+					return true;
+				}
+				if(i == name.length())
+				{
+					return false;
+				}
+				node = node.myChildren.get(name.charAt(i));
+				if(node == null)
+				{
+					return false;
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.ui.actions;
+
+import com.intellij.java.language.psi.PsiClass;
+import com.theoryinpractice.testng.inspection.JUnitConvertTool;
+import com.theoryinpractice.testng.util.TestNGUtil;
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.application.ApplicationManager;
+import consulo.application.ReadAction;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.Task;
+import consulo.language.editor.WriteCommandAction;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.SmartPointerManager;
+import consulo.language.psi.SmartPsiElementPointer;
+import consulo.language.util.IncorrectOperationException;
+import consulo.language.util.ModuleUtilCore;
+import consulo.localize.LocalizeValue;
+import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.action.AnAction;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.awt.Messages;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Converts every JUnit test class of the project to TestNG with {@link JUnitConvertTool.JUnitConverterQuickFix#convert}.
+ * Candidates come from the inheritor and annotation indices and are checked in parallel read actions; the conversions
+ * are applied in write commands of {@link #BATCH_SIZE} classes, so the run can be cancelled between batches and each
+ * batch is undone as one step.
+ */
+@ActionImpl(id = "TestNG.ConvertJUnitTests", parents = @ActionParentRef(@ActionRef(id = "RefactoringMenu")))
+public class ConvertJUnitTestsToTestNGAction extends AnAction
+{
+	private static final Logger LOG = Logger.getInstance(ConvertJUnitTestsToTestNGAction.class);
+	private static final String TITLE = "Convert JUnit Tests to TestNG";
+	private static final int BATCH_SIZE = 50;
+	private static final int MAX_REPORTED_FAILURES = 10;
+
+	public ConvertJUnitTestsToTestNGAction()
+	{
+		super(LocalizeValue.localizeTODO("Convert JUnit Tests to TestNG..."), LocalizeValue.localizeTODO("Convert all JUnit test classes of the project to TestNG"));
+	}
+
+	@Override
+	@RequiredUIAccess
+	public void update(@NotNull AnActionEvent e)
+	{
+		e.getPresentation().setEnabledAndVisible(e.getData(Project.KEY) != null);
+	}
+
+	@Override
+	@RequiredUIAccess
+	public void actionPerformed(@NotNull AnActionEvent e)
+	{
+		final Project project = e.getData(Project.KEY);
+		if(project == null)
+		{
+			return;
+		}
+		final Report report = new Report();
+		new Task.Backgroundable(project, TITLE, true)
+		{
+			@Override
+			public void run(@NotNull ProgressIndicator indicator)
+			{
+				convertAll(project, indicator, report);
+			}
+
+			@Override
+			public void onCancel()
+			{
+				report.myCancelled = true;
+			}
+
+			@Override
+			@RequiredUIAccess
+			public void onFinished()
+			{
+				Messages.showInfoMessage(project, report.toString(), TITLE);
+			}
+		}.queue();
+	}
+
+	private static void convertAll(Project project, ProgressIndicator indicator, Report report)
+	{
+		indicator.setIndeterminate(true);
+		indicator.setText("Searching for JUnit tests...");
+		final Set<PsiClass> candidates = ReadAction.compute(() -> TestNGUtil.findJUnitTestClasses(project));
+
+		indicator.setText("Analyzing " + candidates.size() + " JUnit test classes...");
+		final SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+		final List<SmartPsiElementPointer<PsiClass>> classes = candidates.parallelStream().map(psiClass -> ReadAction.compute(() ->
+		{
+			indicator.checkCanceled();
+			if(!isConvertible(psiClass))
+			{
+				report.mySkipped.incrementAndGet();
+				return null;
+			}
+			return pointerManager.createSmartPsiElementPointer(psiClass);
+		})).filter(Objects::nonNull).collect(Collectors.toList());
+
+		final Set<Module> declinedModules = TestNGUtil.checkTestNGInClasspath(classes);
+
+		indicator.setIndeterminate(false);
+		for(int i = 0; i < classes.size(); i += BATCH_SIZE)
+		{
+			indicator.checkCanceled();
+			indicator.setFraction((double) i / classes.size());
+			indicator.setText("Converting " + (i + 1) + " of " + classes.size() + " classes...");
+			final List<SmartPsiElementPointer<PsiClass>> batch = classes.subList(i, Math.min(classes.size(), i + BATCH_SIZE));
+			ApplicationManager.getApplication().invokeAndWait(() -> WriteCommandAction.runWriteCommandAction(project, () -> convertBatch(project, batch, declinedModules, report)));
+		}
+		indicator.setFraction(1);
+	}
+
+	private static boolean isConvertible(PsiClass psiClass)
+	{
+		if(!psiClass.isValid() || !(TestNGUtil.inheritsJUnitTestCase(psiClass) || TestNGUtil.containsJunitAnnotations(psiClass)))
+		{
+			return false;
+		}
+		final PsiFile file = psiClass.getContainingFile();
+		return file != null && file.isWritable();
+	}
+
+	private static void convertBatch(Project project, List<SmartPsiElementPointer<PsiClass>> batch, Set<Module> declinedModules, Report report)
+	{
+		for(SmartPsiElementPointer<PsiClass> pointer : batch)
+		{
+			final PsiClass psiClass = pointer.getElement();
+			if(psiClass == null || !psiClass.isValid() || declinedModules.contains(ModuleUtilCore.findModuleForPsiElement(psiClass)))
+			{
+				report.mySkipped.incrementAndGet();
+				continue;
+			}
+			final String name = psiClass.getQualifiedName();
+			try
+			{
+				JUnitConvertTool.JUnitConverterQuickFix.convert(project, psiClass);
+				report.myConverted.incrementAndGet();
+				report.myFiles.add(pointer.getVirtualFile());
+			}
+			catch(IncorrectOperationException e)
+			{
+				LOG.warn("Error converting " + name, e);
+				report.myFailed.add(name);
+			}
+		}
+	}
+
+	private static class Report
+	{
+		private final AtomicInteger myConverted = new AtomicInteger();
+		private final AtomicInteger mySkipped = new AtomicInteger();
+		private final Set<VirtualFile> myFiles = Collections.synchronizedSet(new HashSet<>());
+		private final List<String> myFailed = Collections.synchronizedList(new ArrayList<>());
+		private volatile boolean myCancelled;
+
+		@Override
+		public String toString()
+		{
+			final StringBuilder builder = new StringBuilder();
+			if(myCancelled)
+			{
+				builder.append("Conversion cancelled; converted batches can be undone.\n");
+			}
+			builder.append("Converted ").append(myConverted.get()).append(' ').append(StringUtil.pluralize("class", myConverted.get()));
+			builder.append(" in ").append(myFiles.size()).append(' ').append(StringUtil.pluralize("file", myFiles.size())).append('.');
+			if(mySkipped.get() > 0)
+			{
+				builder.append("\nSkipped ").append(mySkipped.get()).append(" read-only, changed or declined classes.");
+			}
+			if(!myFailed.isEmpty())
+			{
+				builder.append("\nFailed to convert ").append(myFailed.size()).append(": ");
+				builder.append(StringUtil.join(myFailed.subList(0, Math.min(myFailed.size(), MAX_REPORTED_FAILURES)), ", "));
+				if(myFailed.size() > MAX_REPORTED_FAILURES)
+				{
+					builder.append(", ...");
+				}
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.ui.actions;
+
+import com.intellij.java.indexing.search.searches.AnnotatedMembersSearch;
+import com.intellij.java.language.psi.JavaPsiFacade;
+import com.intellij.java.language.psi.PsiAnnotation;
+import com.intellij.java.language.psi.PsiClass;
+import com.intellij.java.language.psi.PsiJavaFile;
+import com.intellij.java.language.psi.PsiMember;
+import com.intellij.java.language.psi.PsiModifierList;
+import com.intellij.java.language.psi.codeStyle.JavaCodeStyleManager;
+import com.intellij.java.language.psi.javadoc.PsiDocTag;
+import com.theoryinpractice.testng.inspection.ConvertJavadocInspection;
+import com.theoryinpractice.testng.inspection.ConvertOldAnnotationInspection;
+import com.theoryinpractice.testng.util.TestNGUtil;
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.application.ApplicationManager;
+import consulo.application.ReadAction;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.Task;
+import consulo.language.editor.WriteCommandAction;
+import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.SmartPointerManager;
+import consulo.language.psi.SmartPsiElementPointer;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.search.PsiSearchHelper;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.language.util.IncorrectOperationException;
+import consulo.language.util.ModuleUtilCore;
+import consulo.localize.LocalizeValue;
+import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.action.AnAction;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.awt.Messages;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts all {@code @testng.*} Javadoc tags and old {@code @Configuration} annotations of the project, as
+ * {@link ConvertJavadocInspection} and {@link ConvertOldAnnotationInspection} do one at a time.
+ * Tags are looked up only in files the word index lists for "testng" in comments, annotations through the annotation
+ * index, or in files listing both "Configuration" and "testng" in code when TestNG 6+ no longer has the annotation
+ * class. Each file is rewritten in one write command and the class references of the inserted annotations are shortened
+ * at the end of that command.
+ */
+@ActionImpl(id = "TestNG.ConvertOldAnnotations", parents = @ActionParentRef(@ActionRef(id = "RefactoringMenu")))
+public class ConvertOldTestNGAnnotationsAction extends AnAction
+{
+	private static final Logger LOG = Logger.getInstance(ConvertOldTestNGAnnotationsAction.class);
+	private static final String TITLE = "Convert Old TestNG Annotations";
+	private static final String TESTNG_WORD = "testng";
+	private static final String CONFIGURATION_WORD = "Configuration";
+
+	public ConvertOldTestNGAnnotationsAction()
+	{
+		super(LocalizeValue.localizeTODO("Convert Old TestNG Annotations..."), LocalizeValue.localizeTODO("Convert all TestNG Javadoc tags and @Configuration annotations of the project to annotations"));
+	}
+
+	@Override
+	@RequiredUIAccess
+	public void update(@NotNull AnActionEvent e)
+	{
+		e.getPresentation().setEnabledAndVisible(e.getData(Project.KEY) != null);
+	}
+
+	@Override
+	@RequiredUIAccess
+	public void actionPerformed(@NotNull AnActionEvent e)
+	{
+		final Project project = e.getData(Project.KEY);
+		if(project == null)
+		{
+			return;
+		}
+		final Report report = new Report();
+		new Task.Backgroundable(project, TITLE, true)
+		{
+			@Override
+			public void run(@NotNull ProgressIndicator indicator)
+			{
+				convertAll(project, indicator, report);
+			}
+
+			@Override
+			public void onCancel()
+			{
+				report.myCancelled = true;
+			}
+
+			@Override
+			@RequiredUIAccess
+			public void onFinished()
+			{
+				Messages.showInfoMessage(project, report.toString(), TITLE);
+			}
+		}.queue();
+	}
+
+	private static void convertAll(Project project, ProgressIndicator indicator, Report report)
+	{
+		indicator.setIndeterminate(true);
+		indicator.setText("Searching for old TestNG annotations...");
+		final Map<VirtualFile, List<SmartPsiElementPointer<PsiElement>>> elements = ReadAction.compute(() -> findElements(project, indicator));
+		final List<SmartPsiElementPointer<PsiElement>> allElements = new ArrayList<>();
+		for(List<SmartPsiElementPointer<PsiElement>> fileElements : elements.values())
+		{
+			allElements.addAll(fileElements);
+		}
+		final Set<Module> declinedModules = TestNGUtil.checkTestNGInClasspath(allElements);
+
+		indicator.setIndeterminate(false);
+		int done = 0;
+		for(Map.Entry<VirtualFile, List<SmartPsiElementPointer<PsiElement>>> entry : elements.entrySet())
+		{
+			indicator.checkCanceled();
+			indicator.setFraction((double) done++ / elements.size());
+			indicator.setText2(entry.getKey().getPresentableUrl());
+			ApplicationManager.getApplication().invokeAndWait(() -> WriteCommandAction.runWriteCommandAction(project, () -> convertFile(project, entry.getValue(), declinedModules, report)));
+		}
+		indicator.setFraction(1);
+	}
+
+	/**
+	 * @return {@code @testng.*} doc tags and {@code @Configuration} annotations by file, in project order
+	 */
+	private static Map<VirtualFile, List<SmartPsiElementPointer<PsiElement>>> findElements(Project project, ProgressIndicator indicator)
+	{
+		final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+		final SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+		final Map<VirtualFile, List<SmartPsiElementPointer<PsiElement>>> result = new LinkedHashMap<>();
+
+		PsiSearchHelper.getInstance(project).processAllFilesWithWordInComments(TESTNG_WORD, scope, file ->
+		{
+			indicator.checkCanceled();
+			if(file instanceof PsiJavaFile && file.isWritable())
+			{
+				for(PsiDocTag tag : PsiTreeUtil.findChildrenOfType(file, PsiDocTag.class))
+				{
+					if(tag.getName().startsWith(ConvertJavadocInspection.TESTNG_PREFIX))
+					{
+						add(result, file, pointerManager.<PsiElement>createSmartPsiElementPointer(tag));
+					}
+				}
+			}
+			return true;
+		});
+
+		final PsiClass configuration = JavaPsiFacade.getInstance(project).findClass(ConvertOldAnnotationInspection.CONFIGURATION_ANNOTATION_FQN, GlobalSearchScope.allScope(project));
+		if(configuration != null)
+		{
+			for(PsiMember member : AnnotatedMembersSearch.search(configuration, scope))
+			{
+				indicator.checkCanceled();
+				final PsiModifierList modifierList = member.getModifierList();
+				final PsiAnnotation annotation = modifierList != null ? modifierList.findAnnotation(ConvertOldAnnotationInspection.CONFIGURATION_ANNOTATION_FQN) : null;
+				final PsiFile file = member.getContainingFile();
+				if(annotation != null && file != null && file.isWritable())
+				{
+					add(result, file, pointerManager.<PsiElement>createSmartPsiElementPointer(annotation));
+				}
+			}
+		}
+		else
+		{
+			// "Configuration" is a common word, only files also mentioning testng in code are parsed
+			final Set<PsiFile> testngFiles = new HashSet<>();
+			final PsiSearchHelper searchHelper = PsiSearchHelper.getInstance(project);
+			searchHelper.processAllFilesWithWord(TESTNG_WORD, scope, testngFiles::add, true);
+			searchHelper.processAllFilesWithWord(CONFIGURATION_WORD, scope, file ->
+			{
+				indicator.checkCanceled();
+				if(file instanceof PsiJavaFile && file.isWritable() && testngFiles.contains(file))
+				{
+					for(PsiAnnotation annotation : PsiTreeUtil.findChildrenOfType(file, PsiAnnotation.class))
+					{
+						if(ConvertOldAnnotationInspection.CONFIGURATION_ANNOTATION_FQN.equals(annotation.getQualifiedName()))
+						{
+							add(result, file, pointerManager.<PsiElement>createSmartPsiElementPointer(annotation));
+						}
+					}
+				}
+				return true;
+			}, true);
+		}
+		return result;
+	}
+
+	private static void add(Map<VirtualFile, List<SmartPsiElementPointer<PsiElement>>> result, PsiFile file, SmartPsiElementPointer<PsiElement> pointer)
+	{
+		final VirtualFile virtualFile = file.getVirtualFile();
+		if(virtualFile != null)
+		{
+			result.computeIfAbsent(virtualFile, f -> new ArrayList<>()).add(pointer);
+		}
+	}
+
+	private static void convertFile(Project project, List<SmartPsiElementPointer<PsiElement>> pointers, Set<Module> declinedModules, Report report)
+	{
+		final List<PsiElement> inserted = new ArrayList<>();
+		for(SmartPsiElementPointer<PsiElement> pointer : pointers)
+		{
+			final PsiElement element = pointer.getElement();
+			if(element == null || !element.isValid() || declinedModules.contains(ModuleUtilCore.findModuleForPsiElement(element)))
+			{
+				report.mySkipped.incrementAndGet();
+				continue;
+			}
+			try
+			{
+				if(element instanceof PsiDocTag)
+				{
+					inserted.add(ConvertJavadocInspection.convertTag((PsiDocTag) element));
+					report.myTags.incrementAndGet();
+				}
+				else if(element instanceof PsiAnnotation)
+				{
+					inserted.addAll(ConvertOldAnnotationInspection.convert((PsiAnnotation) element));
+					report.myAnnotations.incrementAndGet();
+				}
+			}
+			catch(IncorrectOperationException e)
+			{
+				LOG.warn("Error converting " + element.getText(), e);
+				report.myFailed.incrementAndGet();
+			}
+		}
+		if(inserted.isEmpty())
+		{
+			return;
+		}
+		final JavaCodeStyleManager codeStyleManager = JavaCodeStyleManager.getInstance(project);
+		for(PsiElement element : inserted)
+		{
+			if(element.isValid())
+			{
+				codeStyleManager.shortenClassReferences(element);
+			}
+		}
+		report.myFiles.incrementAndGet();
+	}
+
+	private static class Report
+	{
+		private final AtomicInteger myTags = new AtomicInteger();
+		private final AtomicInteger myAnnotations = new AtomicInteger();
+		private final AtomicInteger myFiles = new AtomicInteger();
+		private final AtomicInteger mySkipped = new AtomicInteger();
+		private final AtomicInteger myFailed = new AtomicInteger();
+		private volatile boolean myCancelled;
+
+		@Override
+		public String toString()
+		{
+			final StringBuilder builder = new StringBuilder();
+			if(myCancelled)
+			{
+				builder.append("Conversion cancelled; converted files can be undone.\n");
+			}
+			builder.append("Converted ").append(myTags.get()).append(" Javadoc ").append(StringUtil.pluralize("tag", myTags.get()));
+			builder.append(" and ").append(myAnnotations.get()).append(" @Configuration ").append(StringUtil.pluralize("annotation", myAnnotations.get()));
+			builder.append(" in ").append(myFiles.get()).append(' ').append(StringUtil.pluralize("file", myFiles.get())).append('.');
+			if(mySkipped.get() > 0)
+			{
+				builder.append("\nSkipped ").append(mySkipped.get()).append(" changed or declined elements.");
+			}
+			if(myFailed.get() > 0)
+			{
+				builder.append("\nFailed to convert ").append(myFailed.get()).append(" elements, see the log for details.");
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -11,7 +11,6 @@ import com.theoryinpractice.testng.configuration.TestNGConfigurationProducer;
 import com.theoryinpractice.testng.configuration.TestNGRunnableState;
 import com.theoryinpractice.testng.model.TestNGTestObject;
 import com.theoryinpractice.testng.util.TestNGUtil;
-import consulo.application.ApplicationManager;
 import consulo.application.ReadAction;
 import consulo.execution.CantRunException;
 import consulo.execution.action.Location;
@@ -20,6 +19,7 @@ import consulo.execution.executor.Executor;
 import consulo.execution.runner.ExecutionEnvironment;
 import consulo.execution.test.AbstractTestProxy;
 import consulo.execution.test.TestConsoleProperties;
+import consulo.execution.test.TestFrameworkRunningModel;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.module.Module;
@@ -41,6 +41,7 @@ public class RerunFailedTestsAction extends JavaRerunFailedTestsAction
 	{
 		final TestNGConfiguration configuration = (TestNGConfiguration) myConsoleProperties.getConfiguration();
 		final List<AbstractTestProxy> failedTests = getFailedTests(configuration.getProject());
+		final List<AbstractTestProxy> configurations = getConfigurations();
 		return new MyRunProfile(configuration)
 		{
 			@Override
@@ -63,22 +64,16 @@ public class RerunFailedTestsAction extends JavaRerunFailedTestsAction
 							@Override
 							protected void fillTestObjects(final Map<PsiClass, Map<PsiMethod, List<String>>> classes) throws CantRunException
 							{
-								final HashMap<PsiClass, Map<PsiMethod, List<String>>> fullClassList = new HashMap<>();
-								super.fillTestObjects(fullClassList);
-								for(final PsiClass aClass : fullClassList.keySet())
-								{
-									if(!ReadAction.compute(() -> TestNGUtil.hasTest(aClass)))
-									{
-										classes.put(aClass, fullClassList.get(aClass));
-									}
-								}
-
 								final GlobalSearchScope scope = getConfiguration().getConfigurationModule().getSearchScope();
 								final Project project = getConfiguration().getProject();
-								for(final AbstractTestProxy proxy : failedTests)
+								ReadAction.run(() ->
 								{
-									ApplicationManager.getApplication().runReadAction(() -> includeFailedTestWithDependencies(classes, scope, project, proxy));
-								}
+									includeConfigurationClasses(classes, scope, project, configurations);
+									for(final AbstractTestProxy proxy : failedTests)
+									{
+										includeFailedTestWithDependencies(classes, scope, project, proxy);
+									}
+								});
 							}
 						};
 					}
@@ -87,6 +82,63 @@ public class RerunFailedTestsAction extends JavaRerunFailedTestsAction
 		};
 	}
 
+	/**
+	 * Configuration methods which ran during the original session; their classes are kept in the rerun
+	 * when they declare no tests themselves, instead of searching for them again.
+	 */
+	private List<AbstractTestProxy> getConfigurations()
+	{
+		final TestFrameworkRunningModel model = getModel();
+		if(model == null)
+		{
+			return Collections.emptyList();
+		}
+		final Set<String> locations = new HashSet<>();
+		final List<AbstractTestProxy> result = new ArrayList<>();
+		for(AbstractTestProxy proxy : model.getRoot().getAllTests())
+		{
+			if(proxy.isConfig() && proxy.isLeaf())
+			{
+				final String url = proxy.getLocationUrl();
+				if(url == null)
+				{
+					continue;
+				}
+				//each invocation of a configuration method is reported separately
+				final int invocationIdx = url.lastIndexOf('[');
+				if(locations.add(invocationIdx > 0 && url.endsWith("]") ? url.substring(0, invocationIdx) : url))
+				{
+					result.add(proxy);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void includeConfigurationClasses(Map<PsiClass, Map<PsiMethod, List<String>>> classes, GlobalSearchScope scope, Project project, List<AbstractTestProxy> configurations)
+	{
+		for(AbstractTestProxy proxy : configurations)
+		{
+			final Location location = proxy.getLocation(project, scope);
+			final PsiElement element = location != null ? location.getPsiElement() : null;
+			if(element instanceof PsiMethod && element.isValid())
+			{
+				PsiClass psiClass = ((PsiMethod) element).getContainingClass();
+				if(psiClass != null && psiClass.hasModifierProperty(PsiModifier.ABSTRACT))
+				{
+					final AbstractTestProxy parent = proxy.getParent();
+					final Location parentLocation = parent != null ? parent.getLocation(project, scope) : null;
+					final PsiElement elt = parentLocation != null ? parentLocation.getPsiElement() : null;
+					psiClass = elt instanceof PsiClass ? (PsiClass) elt : null;
+				}
+				if(psiClass != null && !classes.containsKey(psiClass) && !TestNGUtil.hasTest(psiClass))
+				{
+					classes.put(psiClass, new LinkedHashMap<>());
+				}
+			}
+		}
+	}
+
 	public static void includeFailedTestWithDependencies(Map<PsiClass, Map<PsiMethod, List<String>>> classes, GlobalSearchScope scope, Project project, AbstractTestProxy proxy)
 	{
 		final Location location = proxy.getLocation(project, scope);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import com.intellij.java.language.impl.JavaFileType;
+import com.intellij.java.language.psi.PsiAnnotation;
+import com.intellij.java.language.psi.PsiAnnotationMemberValue;
+import com.intellij.java.language.psi.PsiJavaFile;
+import com.intellij.java.language.psi.PsiLiteralExpression;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.stub.DefaultFileTypeSpecificInputFilter;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.util.lang.StringUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Indexes Java files by the provider names of the {@code dataProvider} annotation attributes they contain; values are
+ * the offsets of the string literals. Annotations can't be resolved while indexing, so every annotation with the
+ * attribute is taken and the caller checks what the literal resolves to.
+ */
+@ExtensionImpl
+public class TestNGDataProviderFileIndex extends FileBasedIndexExtension<String, List<Integer>> {
+    public static final ID<String, List<Integer>> NAME = ID.create("TestNG.dataProviders");
+
+    static final String DATA_PROVIDER_ATTRIBUTE = "dataProvider";
+
+    @NotNull
+    @Override
+    public ID<String, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            if (!StringUtil.contains(inputData.getContentAsText(), DATA_PROVIDER_ATTRIBUTE)) {
+                return Collections.emptyMap();
+            }
+            final PsiFile psiFile = inputData.getPsiFile();
+            if (!(psiFile instanceof PsiJavaFile)) {
+                return Collections.emptyMap();
+            }
+            final Map<String, List<Integer>> result = new HashMap<>();
+            for (PsiAnnotation annotation : PsiTreeUtil.findChildrenOfType(psiFile, PsiAnnotation.class)) {
+                final PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue(DATA_PROVIDER_ATTRIBUTE);
+                if (value instanceof PsiLiteralExpression && ((PsiLiteralExpression) value).getValue() instanceof String) {
+                    final String providerName = (String) ((PsiLiteralExpression) value).getValue();
+                    result.computeIfAbsent(providerName, k -> new ArrayList<>()).add(value.getTextRange().getStartOffset());
+                }
+            }
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<List<Integer>>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
+                out.writeInt(value.size());
+                for (Integer offset : value) {
+                    out.writeInt(offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                final int size = in.readInt();
+                final List<Integer> offsets = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    offsets.add(in.readInt());
+                }
+                return offsets;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import com.intellij.java.language.psi.PsiLiteralExpression;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.project.Project;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code dataProvider} attribute values of the annotations in a search scope, looked up by provider name. Backed by
+ * {@link TestNGDataProviderFileIndex}, so only edited files are re-read and only files naming the provider are parsed.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public class TestNGDataProviderIndex {
+    private final Project myProject;
+
+    @Inject
+    public TestNGDataProviderIndex(Project project) {
+        myProject = project;
+    }
+
+    @NotNull
+    public static TestNGDataProviderIndex getInstance(@NotNull Project project) {
+        return project.getInstance(TestNGDataProviderIndex.class);
+    }
+
+    /**
+     * @return {@code dataProvider} literals naming the provider; the provider class still has to be checked by resolving them
+     */
+    @NotNull
+    public List<PsiLiteralExpression> getUsages(@NotNull String providerName, @NotNull GlobalSearchScope scope) {
+        final List<PsiLiteralExpression> result = new ArrayList<>();
+        final PsiManager psiManager = PsiManager.getInstance(myProject);
+        FileBasedIndex.getInstance().processValues(TestNGDataProviderFileIndex.NAME, providerName, null, (file, offsets) -> {
+            final PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile != null) {
+                for (Integer offset : offsets) {
+                    final PsiLiteralExpression literal = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), PsiLiteralExpression.class, false);
+                    if (literal != null && providerName.equals(literal.getValue())) {
+                        result.add(literal);
+                    }
+                }
+            }
+            return true;
+        }, scope);
+        return result;
+    }
+}
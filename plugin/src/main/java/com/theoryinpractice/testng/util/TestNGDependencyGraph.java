@@ -0,0 +1,513 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import com.intellij.java.language.codeInsight.AnnotationUtil;
+import com.intellij.java.language.psi.*;
+import com.intellij.java.language.psi.util.InheritanceUtil;
+import consulo.application.util.CachedValueProvider;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.PsiModificationTracker;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.util.LanguageCachedValueUtil;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.project.Project;
+import consulo.util.collection.ContainerUtil;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * {@code dependsOnMethods}/{@code dependsOnGroups} analysis of test and configuration methods: methods that are part of
+ * a dependency cycle, depend on a method that does not exist, or can never run because a method they depend on is
+ * disabled.
+ * <p>
+ * Only the part of the graph reachable from the analyzed class is built. The nodes of a class are cached until its
+ * file or the file of one of its supers changes; dependency targets are looked up per dependency, qualified names
+ * through the class index, groups through {@link TestNGGroupFileIndex} and regular expressions through the classes and
+ * packages under their literal prefix. The problems of a class are cached until a Java structure change.
+ */
+public class TestNGDependencyGraph {
+    private static final Set<String> ATTRIBUTES = Set.of("dependsOnMethods", "dependsOnGroups", "groups", "enabled", "alwaysRun");
+
+    private final Project myProject;
+    private final GlobalSearchScope myScope;
+    private final Map<String, String> myProblems = new HashMap<>();
+    private final Map<Node, List<Node>> myEdges = new HashMap<>();
+    private final Map<String, List<Node>> myClassNodes = new HashMap<>();
+    private final Map<String, List<Node>> myGroupNodes = new HashMap<>();
+
+    /**
+     * Dependency data of one test or configuration method. Dependencies refer to {@code class.method} keys, which
+     * overloads share as TestNG matches dependencies by name; problems are reported per overload.
+     */
+    private static class Node {
+        private final String myKey;
+        private final String myId;
+        private final String myClassName;
+        private final String myMethodName;
+        private final Set<String> myClassNames;
+        private final boolean myEnabled;
+        private final boolean myAlwaysRun;
+        private final List<String> myMethodDependencies = new ArrayList<>();
+        private final List<String> myQualifiedDependencies = new ArrayList<>();
+        private final List<String> myPatternDependencies = new ArrayList<>();
+        private final Set<String> myGroupDependencies;
+        private final Set<String> myGroups;
+
+        private Node(String className, PsiMethod method, Set<String> classNames, Map<String, Set<String>> values) {
+            myClassName = className;
+            myMethodName = method.getName();
+            myKey = StringUtil.getQualifiedName(className, myMethodName);
+            myId = getId(myKey, method);
+            myClassNames = classNames;
+            myEnabled = !values.getOrDefault("enabled", Collections.emptySet()).contains("false");
+            myAlwaysRun = values.getOrDefault("alwaysRun", Collections.emptySet()).contains("true");
+            myGroupDependencies = values.getOrDefault("dependsOnGroups", Collections.emptySet());
+            myGroups = values.getOrDefault("groups", Collections.emptySet());
+        }
+    }
+
+    private TestNGDependencyGraph(Project project) {
+        myProject = project;
+        myScope = GlobalSearchScope.allScope(project);
+    }
+
+    /**
+     * @return why the method can never run as declared, or null
+     */
+    @Nullable
+    public static String getProblem(@NotNull PsiMethod method) {
+        final PsiClass containingClass = method.getContainingClass();
+        final String className = containingClass != null ? containingClass.getQualifiedName() : null;
+        return className != null ? getProblems(containingClass).get(getId(StringUtil.getQualifiedName(className, method.getName()), method)) : null;
+    }
+
+    private static Map<String, String> getProblems(PsiClass psiClass) {
+        return LanguageCachedValueUtil.getCachedValue(psiClass, () -> {
+            final Map<String, String> problems = new TestNGDependencyGraph(psiClass.getProject()).analyze(getNodes(psiClass));
+            return CachedValueProvider.Result.create(problems, PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT);
+        });
+    }
+
+    private static String getId(String key, PsiMethod method) {
+        final StringBuilder id = new StringBuilder(key).append('(');
+        final PsiParameter[] parameters = method.getParameterList().getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                id.append(',');
+            }
+            id.append(parameters[i].getType().getCanonicalText());
+        }
+        return id.append(')').toString();
+    }
+
+    private static List<Node> getNodes(PsiClass psiClass) {
+        return LanguageCachedValueUtil.getCachedValue(psiClass, () -> {
+            final Set<PsiClass> superClasses = InheritanceUtil.getSuperClasses(psiClass);
+            final List<Object> dependencies = new ArrayList<>();
+            dependencies.add(psiClass.getContainingFile());
+            for (PsiClass superClass : superClasses) {
+                final PsiFile file = superClass.getContainingFile();
+                if (file != null) {
+                    dependencies.add(file);
+                }
+            }
+            return CachedValueProvider.Result.create(computeNodes(psiClass, superClasses), dependencies.toArray());
+        });
+    }
+
+    private static List<Node> computeNodes(PsiClass psiClass, Set<PsiClass> superClasses) {
+        final String className = psiClass.getQualifiedName();
+        if (className == null) {
+            return Collections.emptyList();
+        }
+        final Set<String> classNames = new HashSet<>();
+        classNames.add(className);
+        for (PsiClass superClass : superClasses) {
+            ContainerUtil.addIfNotNull(classNames, superClass.getQualifiedName());
+        }
+        final Set<String> annotations = TestNGUtil.getTestAndConfigAnnotations();
+        final Map<String, Set<String>> classValues = collect(AnnotationUtil.findAnnotation(psiClass, annotations), psiClass);
+        final boolean classLevelTest = AnnotationUtil.isAnnotated(psiClass, TestNGUtil.TEST_ANNOTATION_FQN, 0);
+        final List<Node> nodes = new ArrayList<>();
+        for (PsiMethod method : psiClass.getMethods()) {
+            final PsiAnnotation annotation = AnnotationUtil.findAnnotation(method, annotations);
+            final boolean implicitTest = annotation == null && classLevelTest && method.hasModifierProperty(PsiModifier.PUBLIC) && !method.isConstructor();
+            if (annotation == null && !implicitTest) {
+                continue;
+            }
+            final Map<String, Set<String>> values = collect(annotation, method);
+            if (implicitTest || TestNGUtil.TEST_ANNOTATION_FQN.equals(annotation.getQualifiedName())) {
+                // class level @Test attributes apply to all test methods of the class
+                for (Map.Entry<String, Set<String>> entry : classValues.entrySet()) {
+                    values.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+                }
+            }
+            final Node node = new Node(className, method, classNames, values);
+            for (String dependency : values.getOrDefault("dependsOnMethods", Collections.emptySet())) {
+                if (TestNGUtil.getDependencyPattern(dependency) != null) {
+                    node.myPatternDependencies.add(dependency);
+                }
+                else if (dependency.indexOf('.') >= 0) {
+                    node.myQualifiedDependencies.add(dependency.replace('$', '.'));
+                }
+                else {
+                    ContainerUtil.addIfNotNull(node.myMethodDependencies, resolveMethodDependency(psiClass, dependency));
+                }
+            }
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static Map<String, Set<String>> collect(PsiAnnotation annotation, PsiDocCommentOwner owner) {
+        final Map<String, Set<String>> values = new HashMap<>();
+        if (annotation != null) {
+            TestNGUtil.processAnnotationAttributeValues(annotation, owner, ATTRIBUTES, (parameter, value) -> {
+                if (value != null) {
+                    values.computeIfAbsent(parameter, p -> new HashSet<>()).add(value);
+                }
+            });
+        }
+        return values;
+    }
+
+    /**
+     * Looks up an unqualified name in the class and its supers; unknown names are reported by {@code DependsOnMethodInspection} itself.
+     */
+    @Nullable
+    private static String resolveMethodDependency(PsiClass psiClass, String name) {
+        final PsiMethod[] methods = psiClass.findMethodsByName(name, true);
+        final PsiClass containingClass = methods.length > 0 ? methods[0].getContainingClass() : null;
+        final String className = containingClass != null ? containingClass.getQualifiedName() : null;
+        return className != null ? StringUtil.getQualifiedName(className, name) : null;
+    }
+
+    /**
+     * Builds the graph reachable from the nodes of one class and analyzes it in linear time.
+     *
+     * @return problems of those nodes by id
+     */
+    private Map<String, String> analyze(List<Node> roots) {
+        if (roots.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Set<Node> reachable = new LinkedHashSet<>(roots);
+        final Deque<Node> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            for (Node target : getEdges(queue.poll())) {
+                if (reachable.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+
+        for (List<Node> cycle : findCycles(reachable, this::getEdges)) {
+            final List<String> names = new ArrayList<>();
+            for (Node n : cycle) {
+                names.add(StringUtil.getShortName(n.myClassName) + "." + n.myMethodName);
+            }
+            Collections.sort(names);
+            final String problem = "Part of a dependency cycle: " + StringUtil.join(names, ", ");
+            for (Node n : cycle) {
+                myProblems.put(n.myId, problem);
+            }
+        }
+        reportDisabledDependencies(reachable);
+
+        final Map<String, String> problems = new HashMap<>();
+        for (Node root : roots) {
+            final String problem = myProblems.get(root.myId);
+            if (problem != null) {
+                problems.put(root.myId, problem);
+            }
+        }
+        return problems;
+    }
+
+    private List<Node> getEdges(Node node) {
+        List<Node> targets = myEdges.get(node);
+        if (targets != null) {
+            return targets;
+        }
+        targets = new ArrayList<>();
+        for (String dependency : node.myMethodDependencies) {
+            targets.addAll(getNodesByKey(dependency));
+        }
+        for (String dependency : node.myQualifiedDependencies) {
+            final List<Node> dependencyNodes = getNodesByKey(dependency);
+            if (!dependencyNodes.isEmpty()) {
+                targets.addAll(dependencyNodes);
+            }
+            else {
+                myProblems.putIfAbsent(node.myId, "Depends on unknown method '" + dependency + "'");
+            }
+        }
+        for (String dependency : node.myPatternDependencies) {
+            if (!addMatchingNodes(node, dependency, targets)) {
+                myProblems.putIfAbsent(node.myId, "No method matches dependency '" + dependency + "'");
+            }
+        }
+        for (String group : node.myGroupDependencies) {
+            targets.addAll(getGroupNodes(group));
+        }
+        myEdges.put(node, targets);
+        return targets;
+    }
+
+    private List<Node> getNodesByKey(String key) {
+        final List<Node> result = new ArrayList<>();
+        for (Node node : getClassNodes(StringUtil.getPackageName(key))) {
+            if (node.myKey.equals(key)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private List<Node> getClassNodes(String className) {
+        List<Node> nodes = myClassNodes.get(className);
+        if (nodes == null) {
+            nodes = new ArrayList<>();
+            for (PsiClass psiClass : JavaPsiFacade.getInstance(myProject).findClasses(className, myScope)) {
+                nodes.addAll(getNodes(psiClass));
+            }
+            myClassNodes.put(className, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * TestNG matches a regular expression dependency against qualified method names; names of the methods of the
+     * class and its supers are matched unqualified as well. Qualified candidates are the methods of the class or the
+     * classes of the package named by the literal prefix of the expression; without such a prefix only the class and
+     * its supers are checked and a missing match is not reported.
+     *
+     * @return whether any method matched, or the candidates could not be narrowed down
+     */
+    private boolean addMatchingNodes(Node node, String dependency, List<Node> targets) {
+        final Pattern pattern = TestNGUtil.getDependencyPattern(dependency);
+        boolean found = false;
+        for (String className : node.myClassNames) {
+            for (Node candidate : getClassNodes(className)) {
+                if (pattern.matcher(candidate.myMethodName).matches() || pattern.matcher(candidate.myKey).matches()) {
+                    targets.add(candidate);
+                    found = true;
+                }
+            }
+        }
+        final Collection<PsiClass> classes = findPrefixClasses(dependency);
+        if (classes == null) {
+            return true;
+        }
+        for (PsiClass psiClass : classes) {
+            for (Node candidate : getNodes(psiClass)) {
+                if (!node.myClassNames.contains(candidate.myClassName) && pattern.matcher(candidate.myKey).matches()) {
+                    targets.add(candidate);
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Walks the literal prefix of the expression up to the closest class or package.
+     *
+     * @return the class, or the classes of the package and its subpackages; null without a usable prefix
+     */
+    @Nullable
+    private Collection<PsiClass> findPrefixClasses(String dependency) {
+        int end = 0;
+        while (end < dependency.length() && TestNGUtil.DEPENDENCY_PATTERN_CHARS.indexOf(dependency.charAt(end)) < 0) {
+            end++;
+        }
+        final JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(myProject);
+        for (String name = StringUtil.getPackageName(dependency.substring(0, end)); !name.isEmpty(); name = StringUtil.getPackageName(name)) {
+            final PsiClass[] classes = psiFacade.findClasses(name, myScope);
+            if (classes.length > 0) {
+                return Arrays.asList(classes);
+            }
+            final PsiJavaPackage psiPackage = psiFacade.findPackage(name);
+            if (psiPackage != null) {
+                final List<PsiClass> result = new ArrayList<>();
+                collectPackageClasses(psiPackage, result);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private void collectPackageClasses(PsiJavaPackage psiPackage, List<PsiClass> result) {
+        Collections.addAll(result, psiPackage.getClasses(myScope));
+        for (PsiJavaPackage subPackage : psiPackage.getSubPackages(myScope)) {
+            collectPackageClasses(subPackage, result);
+        }
+    }
+
+    /**
+     * @param group a group name, or a regular expression as TestNG accepts in {@code dependsOnGroups}
+     */
+    private List<Node> getGroupNodes(String group) {
+        List<Node> nodes = myGroupNodes.get(group);
+        if (nodes != null) {
+            return nodes;
+        }
+        final FileBasedIndex index = FileBasedIndex.getInstance();
+        final Pattern pattern = TestNGUtil.getDependencyPattern(group);
+        final Set<String> groups = new HashSet<>();
+        if (pattern != null) {
+            for (String key : index.getAllKeys(TestNGGroupFileIndex.NAME, myProject)) {
+                if (pattern.matcher(key).matches()) {
+                    groups.add(key);
+                }
+            }
+        }
+        else {
+            groups.add(group);
+        }
+        final Set<VirtualFile> files = new LinkedHashSet<>();
+        for (String key : groups) {
+            files.addAll(index.getContainingFiles(TestNGGroupFileIndex.NAME, key, myScope));
+        }
+        nodes = new ArrayList<>();
+        final PsiManager psiManager = PsiManager.getInstance(myProject);
+        for (VirtualFile file : files) {
+            final PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile == null) {
+                continue;
+            }
+            for (PsiClass psiClass : PsiTreeUtil.findChildrenOfType(psiFile, PsiClass.class)) {
+                for (Node node : getNodes(psiClass)) {
+                    if (!Collections.disjoint(node.myGroups, groups)) {
+                        nodes.add(node);
+                    }
+                }
+            }
+        }
+        myGroupNodes.put(group, nodes);
+        return nodes;
+    }
+
+    /**
+     * Tarjan's strongly connected components, iterative so that long dependency chains don't overflow the stack.
+     *
+     * @return components of more than one node, and single nodes depending on themselves
+     */
+    static <T> List<List<T>> findCycles(Collection<T> nodes, Function<T, ? extends Collection<T>> edges) {
+        final List<List<T>> cycles = new ArrayList<>();
+        final Map<T, Integer> index = new HashMap<>();
+        final Map<T, Integer> lowLink = new HashMap<>();
+        final Deque<T> stack = new ArrayDeque<>();
+        final Set<T> onStack = new HashSet<>();
+        final Deque<Frame<T>> work = new ArrayDeque<>();
+        int counter = 0;
+        for (T root : nodes) {
+            if (index.containsKey(root)) {
+                continue;
+            }
+            work.push(new Frame<>(root, edges.apply(root).iterator()));
+            index.put(root, counter);
+            lowLink.put(root, counter++);
+            stack.push(root);
+            onStack.add(root);
+            while (!work.isEmpty()) {
+                final Frame<T> frame = work.peek();
+                final T node = frame.myNode;
+                if (frame.myTargets.hasNext()) {
+                    final T target = frame.myTargets.next();
+                    if (!index.containsKey(target)) {
+                        index.put(target, counter);
+                        lowLink.put(target, counter++);
+                        stack.push(target);
+                        onStack.add(target);
+                        work.push(new Frame<>(target, edges.apply(target).iterator()));
+                    }
+                    else if (onStack.contains(target)) {
+                        lowLink.put(node, Math.min(lowLink.get(node), index.get(target)));
+                    }
+                    continue;
+                }
+                work.pop();
+                if (!work.isEmpty()) {
+                    final T parent = work.peek().myNode;
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+                }
+                if (lowLink.get(node).equals(index.get(node))) {
+                    final List<T> component = new ArrayList<>();
+                    T member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    }
+                    while (member != node);
+                    if (component.size() > 1 || edges.apply(node).contains(node)) {
+                        cycles.add(component);
+                    }
+                }
+            }
+        }
+        return cycles;
+    }
+
+    private static class Frame<T> {
+        private final T myNode;
+        private final Iterator<T> myTargets;
+
+        private Frame(T node, Iterator<T> targets) {
+            myNode = node;
+            myTargets = targets;
+        }
+    }
+
+    /**
+     * Methods that (transitively) depend on a disabled method without {@code alwaysRun} are skipped by TestNG.
+     */
+    private void reportDisabledDependencies(Collection<Node> nodes) {
+        final Map<Node, List<Node>> dependents = new HashMap<>();
+        final Deque<Node> queue = new ArrayDeque<>();
+        final Map<Node, String> blockedBy = new HashMap<>();
+        for (Node node : nodes) {
+            for (Node target : getEdges(node)) {
+                dependents.computeIfAbsent(target, t -> new ArrayList<>()).add(node);
+            }
+            if (!node.myEnabled) {
+                queue.add(node);
+                blockedBy.put(node, node.myKey);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            for (Node dependent : dependents.getOrDefault(node, Collections.emptyList())) {
+                if (dependent.myAlwaysRun || !dependent.myEnabled || blockedBy.containsKey(dependent)) {
+                    continue;
+                }
+                blockedBy.put(dependent, blockedBy.get(node));
+                myProblems.putIfAbsent(dependent.myId, "Never runs: depends on disabled method '" + blockedBy.get(node) + "'");
+                queue.add(dependent);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import com.intellij.java.language.psi.*;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.application.util.CachedValueProvider;
+import consulo.language.psi.PsiCompiledElement;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.PsiModificationTracker;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.util.LanguageCachedValueUtil;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Test groups declared in a project: {@code groups} of annotations and {@code <define>} tags of suites. Literal groups
+ * are looked up in {@link TestNGGroupFileIndex}, suite groups in {@link TestNGSuiteIndex}; only files the index lists
+ * with constant groups and compiled superclasses of the checked class are read, and their groups are cached per class.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public class TestNGGroupIndex {
+    private static final String GROUPS_ATTRIBUTE = "groups";
+
+    private final Project myProject;
+
+    @Inject
+    public TestNGGroupIndex(Project project) {
+        myProject = project;
+    }
+
+    @NotNull
+    public static TestNGGroupIndex getInstance(@NotNull Project project) {
+        return project.getInstance(TestNGGroupIndex.class);
+    }
+
+    /**
+     * @param group   a group name, or a regular expression as TestNG accepts in {@code dependsOnGroups}
+     * @param context the class depending on the group, its compiled superclasses are checked too
+     */
+    public boolean isDeclared(@NotNull String group, @NotNull PsiClass context) {
+        final GlobalSearchScope scope = GlobalSearchScope.allScope(myProject);
+        final TestNGSuiteIndex suiteIndex = TestNGSuiteIndex.getInstance(myProject);
+        if (contains(group, scope) || suiteIndex.isGroupDefined(group)) {
+            return true;
+        }
+        final Set<String> constantGroups = getConstantGroups(scope);
+        final Set<String> libraryGroups = getLibraryGroups(context);
+        if (constantGroups.contains(group) || libraryGroups.contains(group)) {
+            return true;
+        }
+        final Pattern pattern = TestNGUtil.getDependencyPattern(group);
+        if (pattern == null) {
+            return false;
+        }
+        for (String key : FileBasedIndex.getInstance().getAllKeys(TestNGGroupFileIndex.NAME, myProject)) {
+            if (!TestNGGroupFileIndex.CONSTANT_GROUPS_KEY.equals(key) && pattern.matcher(key).matches() && contains(key, scope)) {
+                return true;
+            }
+        }
+        return matches(pattern, constantGroups) || matches(pattern, libraryGroups) || matches(pattern, suiteIndex.getDefinedGroups());
+    }
+
+    private static boolean matches(Pattern pattern, Collection<String> groups) {
+        for (String declared : groups) {
+            if (pattern.matcher(declared).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(String key, GlobalSearchScope scope) {
+        // the key list of the index may be stale, only values of existing files count
+        final boolean[] found = {false};
+        FileBasedIndex.getInstance().processValues(TestNGGroupFileIndex.NAME, key, null, (file, offsets) -> {
+            found[0] = true;
+            return false;
+        }, scope);
+        return found[0];
+    }
+
+    private Set<String> getConstantGroups(GlobalSearchScope scope) {
+        final Collection<VirtualFile> files = FileBasedIndex.getInstance().getContainingFiles(TestNGGroupFileIndex.NAME, TestNGGroupFileIndex.CONSTANT_GROUPS_KEY, scope);
+        if (files.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final PsiManager psiManager = PsiManager.getInstance(myProject);
+        final Set<String> groups = new HashSet<>();
+        for (VirtualFile file : files) {
+            final PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile instanceof PsiClassOwner) {
+                for (PsiClass psiClass : ((PsiClassOwner) psiFile).getClasses()) {
+                    groups.addAll(getConstantGroups(psiClass));
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * @return groups given by constant expressions anywhere in the class, cached until any Java structure change as the
+     * constants may live in other files
+     */
+    private static Set<String> getConstantGroups(PsiClass psiClass) {
+        return LanguageCachedValueUtil.getCachedValue(psiClass, () -> {
+            final PsiConstantEvaluationHelper evaluationHelper = JavaPsiFacade.getInstance(psiClass.getProject()).getConstantEvaluationHelper();
+            final Set<String> groups = new HashSet<>();
+            for (PsiAnnotation annotation : TestNGUtil.getTestNGAnnotations(psiClass)) {
+                final PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue(GROUPS_ATTRIBUTE);
+                final PsiAnnotationMemberValue[] values = value instanceof PsiArrayInitializerMemberValue
+                    ? ((PsiArrayInitializerMemberValue) value).getInitializers()
+                    : new PsiAnnotationMemberValue[]{value};
+                for (PsiAnnotationMemberValue groupValue : values) {
+                    if (groupValue instanceof PsiExpression && !(groupValue instanceof PsiLiteralExpression)) {
+                        final Object group = evaluationHelper.computeConstantExpression(groupValue);
+                        if (group instanceof String) {
+                            groups.add((String) group);
+                        }
+                    }
+                }
+            }
+            return CachedValueProvider.Result.create(
+                groups.isEmpty() ? Collections.emptySet() : groups,
+                psiClass.getContainingFile(),
+                PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT
+            );
+        });
+    }
+
+    /**
+     * Groups of compiled superclasses, which the index doesn't see.
+     */
+    private static Set<String> getLibraryGroups(PsiClass context) {
+        Set<String> groups = Collections.emptySet();
+        final Set<PsiClass> visited = new HashSet<>();
+        for (PsiClass aClass = context.getSuperClass(); aClass != null && visited.add(aClass); aClass = aClass.getSuperClass()) {
+            if (CommonClassNames.JAVA_LANG_OBJECT.equals(aClass.getQualifiedName())) {
+                break;
+            }
+            if (aClass instanceof PsiCompiledElement) {
+                final Set<String> classGroups = getDeclaredGroups(aClass);
+                if (!classGroups.isEmpty()) {
+                    if (groups.isEmpty()) {
+                        groups = new HashSet<>();
+                    }
+                    groups.addAll(classGroups);
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static Set<String> getDeclaredGroups(PsiClass psiClass) {
+        return LanguageCachedValueUtil.getCachedValue(psiClass, () -> {
+            final Set<String> groups = TestNGUtil.collectAnnotationValues(Collections.singleton(psiClass), Collections.singleton(GROUPS_ATTRIBUTE), false)
+                .getOrDefault(psiClass, Collections.emptyMap())
+                .getOrDefault(GROUPS_ATTRIBUTE, Collections.emptySet());
+            return CachedValueProvider.Result.create(groups, psiClass.getContainingFile());
+        });
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import consulo.annotation.component.ExtensionImpl;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.stub.DefaultFileTypeSpecificInputFilter;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.util.lang.StringUtil;
+import consulo.xml.ide.highlighter.XmlFileType;
+import consulo.xml.psi.xml.XmlAttribute;
+import consulo.xml.psi.xml.XmlAttributeValue;
+import consulo.xml.psi.xml.XmlFile;
+import consulo.xml.psi.xml.XmlTag;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Indexes testng.xml suites by the classes, packages and package patterns they declare and the groups they
+ * {@code <define>}. Keys carry a kind prefix, values are the offsets of the declaring {@code name} attribute values.
+ */
+@ExtensionImpl
+public class TestNGSuiteFileIndex extends FileBasedIndexExtension<String, List<Integer>> {
+    public static final ID<String, List<Integer>> NAME = ID.create("TestNG.suites");
+
+    static final String CLASS_PREFIX = "class:";
+    static final String PACKAGE_PREFIX = "package:";
+    static final String PACKAGE_PATTERN_PREFIX = "pattern:";
+    static final String GROUP_PREFIX = "group:";
+
+    private static final String SUITE_TAG_NAME = "suite";
+    private static final String SUITE_TAG_START = "<" + SUITE_TAG_NAME;
+    private static final String CLASS_TAG_NAME = "class";
+    private static final String PACKAGE_TAG_NAME = "package";
+    private static final String DEFINE_TAG_NAME = "define";
+    private static final String WILDCARD_SUFFIX = ".*";
+
+    @NotNull
+    @Override
+    public ID<String, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            // most XML files are not suites, don't build their PSI
+            if (!StringUtil.contains(inputData.getContentAsText(), SUITE_TAG_START)) {
+                return Collections.emptyMap();
+            }
+            final PsiFile psiFile = inputData.getPsiFile();
+            final XmlTag rootTag = psiFile instanceof XmlFile ? ((XmlFile) psiFile).getRootTag() : null;
+            if (rootTag == null || !SUITE_TAG_NAME.equals(rootTag.getName())) {
+                return Collections.emptyMap();
+            }
+            final Map<String, List<Integer>> result = new HashMap<>();
+            collect(rootTag, result);
+            return result;
+        };
+    }
+
+    private static void collect(XmlTag tag, Map<String, List<Integer>> result) {
+        final String tagName = tag.getName();
+        if (CLASS_TAG_NAME.equals(tagName) || PACKAGE_TAG_NAME.equals(tagName)) {
+            final XmlAttribute attribute = tag.getAttribute("name");
+            final XmlAttributeValue valueElement = attribute != null ? attribute.getValueElement() : null;
+            final String value = valueElement != null ? valueElement.getValue().trim() : null;
+            if (!StringUtil.isEmpty(value)) {
+                final String key;
+                if (CLASS_TAG_NAME.equals(tagName)) {
+                    key = CLASS_PREFIX + value.replace('$', '.');
+                }
+                else if (value.endsWith(WILDCARD_SUFFIX)) {
+                    key = PACKAGE_PATTERN_PREFIX + StringUtil.trimEnd(value, WILDCARD_SUFFIX);
+                }
+                else {
+                    key = PACKAGE_PREFIX + value;
+                }
+                result.computeIfAbsent(key, k -> new ArrayList<>()).add(valueElement.getTextRange().getStartOffset());
+            }
+            return;
+        }
+        if (DEFINE_TAG_NAME.equals(tagName)) {
+            final String name = tag.getAttributeValue("name");
+            if (!StringUtil.isEmptyOrSpaces(name)) {
+                result.computeIfAbsent(GROUP_PREFIX + name.trim(), k -> new ArrayList<>()).add(tag.getTextRange().getStartOffset());
+            }
+        }
+        for (XmlTag subTag : tag.getSubTags()) {
+            collect(subTag, result);
+        }
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<List<Integer>>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
+                out.writeInt(value.size());
+                for (Integer offset : value) {
+                    out.writeInt(offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                final int size = in.readInt();
+                final List<Integer> offsets = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    offsets.add(in.readInt());
+                }
+                return offsets;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+}
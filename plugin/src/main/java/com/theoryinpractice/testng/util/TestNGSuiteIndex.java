@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.project.Project;
+import consulo.util.lang.StringUtil;
+import consulo.xml.psi.xml.XmlAttributeValue;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Classes, packages and package patterns declared by the testng.xml suites of a project, and the groups the suites
+ * {@code <define>}. Backed by {@link TestNGSuiteFileIndex}, so only edited suite files are re-read and edits of other
+ * files don't invalidate anything; declarations are resolved to {@code name} attribute values only when asked for.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public class TestNGSuiteIndex {
+    private final Project myProject;
+    private final GlobalSearchScope myScope;
+
+    @Inject
+    public TestNGSuiteIndex(Project project) {
+        myProject = project;
+        myScope = GlobalSearchScope.projectScope(project);
+    }
+
+    @NotNull
+    public static TestNGSuiteIndex getInstance(@NotNull Project project) {
+        return project.getInstance(TestNGSuiteIndex.class);
+    }
+
+    /**
+     * @return whether the class is declared in a suite by name or through a {@code pkg.*} pattern covering its package
+     */
+    public boolean isDeclared(@NotNull String qualifiedName, @NotNull String packageName) {
+        if (contains(TestNGSuiteFileIndex.CLASS_PREFIX + qualifiedName)) {
+            return true;
+        }
+        for (String name = packageName; !name.isEmpty(); name = StringUtil.getPackageName(name)) {
+            if (contains(TestNGSuiteFileIndex.PACKAGE_PATTERN_PREFIX + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code class} tags naming the class and {@code package} tags naming its package exactly or as {@code pkg.*}
+     */
+    @NotNull
+    public List<PsiElement> getDeclarations(@NotNull String qualifiedName, @NotNull String packageName) {
+        final List<PsiElement> result = new ArrayList<>();
+        collectDeclarations(TestNGSuiteFileIndex.CLASS_PREFIX + qualifiedName, result);
+        if (!packageName.isEmpty()) {
+            collectDeclarations(TestNGSuiteFileIndex.PACKAGE_PREFIX + packageName, result);
+            collectDeclarations(TestNGSuiteFileIndex.PACKAGE_PATTERN_PREFIX + packageName, result);
+        }
+        return result;
+    }
+
+    @NotNull
+    public Set<String> getDefinedGroups() {
+        final Set<String> groups = new HashSet<>();
+        for (String key : FileBasedIndex.getInstance().getAllKeys(TestNGSuiteFileIndex.NAME, myProject)) {
+            if (key.startsWith(TestNGSuiteFileIndex.GROUP_PREFIX) && contains(key)) {
+                groups.add(key.substring(TestNGSuiteFileIndex.GROUP_PREFIX.length()));
+            }
+        }
+        return groups;
+    }
+
+    public boolean isGroupDefined(@NotNull String group) {
+        return contains(TestNGSuiteFileIndex.GROUP_PREFIX + group);
+    }
+
+    private boolean contains(String key) {
+        // the key list of the index may be stale, only values of existing files count
+        final boolean[] found = {false};
+        FileBasedIndex.getInstance().processValues(TestNGSuiteFileIndex.NAME, key, null, (file, offsets) -> {
+            found[0] = true;
+            return false;
+        }, myScope);
+        return found[0];
+    }
+
+    private void collectDeclarations(String key, List<PsiElement> result) {
+        final PsiManager psiManager = PsiManager.getInstance(myProject);
+        FileBasedIndex.getInstance().processValues(TestNGSuiteFileIndex.NAME, key, null, (file, offsets) -> {
+            final PsiFile psiFile = psiManager.findFile(file);
+            if (psiFile != null) {
+                for (Integer offset : offsets) {
+                    final XmlAttributeValue value = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), XmlAttributeValue.class, false);
+                    if (value != null) {
+                        result.add(value);
+                    }
+                }
+            }
+            return true;
+        }, myScope);
+    }
+}
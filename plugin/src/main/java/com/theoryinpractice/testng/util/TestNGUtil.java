@@ -2,6 +2,8 @@
 package com.theoryinpractice.testng.util;
 
 import com.intellij.java.indexing.search.searches.AllClassesSearch;
+import com.intellij.java.indexing.search.searches.AnnotatedMembersSearch;
+import com.intellij.java.indexing.search.searches.ClassInheritorsSearch;
 import com.intellij.java.language.codeInsight.AnnotationUtil;
 import com.intellij.java.language.psi.*;
 import com.intellij.java.language.psi.javadoc.PsiDocComment;
@@ -15,9 +17,13 @@ import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.application.util.CachedValueProvider;
 import consulo.application.util.CachedValuesManager;
+import consulo.application.util.RecursionManager;
+import consulo.language.psi.PsiDirectory;
 import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiFile;
 import consulo.language.psi.PsiManager;
 import consulo.language.psi.PsiModificationTracker;
+import consulo.language.psi.SmartPsiElementPointer;
 import consulo.language.psi.resolve.PsiElementProcessor;
 import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.language.psi.util.LanguageCachedValueUtil;
@@ -30,9 +36,10 @@ import consulo.module.content.util.ModuleRootModificationUtil;
 import consulo.project.Project;
 import consulo.ui.ex.awt.Messages;
 import consulo.util.collection.ContainerUtil;
-import consulo.util.io.BufferExposingByteArrayInputStream;
+import consulo.util.dataholder.Key;
 import consulo.util.io.ClassPathUtil;
 import consulo.util.io.JarUtil;
+import consulo.util.lang.Pair;
 import consulo.util.lang.StringUtil;
 import consulo.util.lang.Version;
 import consulo.util.xml.fastReader.NanoXmlUtil;
@@ -50,9 +57,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.jar.Attributes;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * @author Hani Suleiman
@@ -120,6 +129,16 @@ public class TestNGUtil {
         Arrays.asList("org.junit.Test", "org.junit.Before", "org.junit.BeforeClass", "org.junit.After", "org.junit.AfterClass");
 
     private static final String SUITE_TAG_NAME = "suite";
+    private static final Key<Pair<Long, Boolean>> TESTNG_XML_KEY = Key.create("TestNG.isTestngXML");
+
+    private static final int ANNOTATION_VALUES_CHUNK_SIZE = 256;
+
+    static final String DEPENDENCY_PATTERN_CHARS = "*+?[](){}|^$\\";
+
+    private static final int TEST_METHOD = 1;
+    private static final int DISABLED_TEST_METHOD = 1 << 1;
+    private static final int FACTORY_METHOD = 1 << 2;
+    private static final int JAVADOC_TEST_METHOD = 1 << 3;
 
     public static boolean hasConfig(PsiModifierListOwner element) {
         return hasConfig(element, CONFIG_ANNOTATIONS_FQN);
@@ -199,7 +218,7 @@ public class TestNGUtil {
     public static boolean hasTest(PsiModifierListOwner element) {
         return LanguageCachedValueUtil.getCachedValue(
             element,
-            () -> CachedValueProvider.Result.create(hasTest(element, true), PsiModificationTracker.MODIFICATION_COUNT)
+            () -> CachedValueProvider.Result.create(hasTest(element, true), PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT)
         );
     }
 
@@ -242,25 +261,14 @@ public class TestNGUtil {
         }
         //now we check all methods for the test annotation
         if (element instanceof PsiClass) {
-            PsiClass psiClass = (PsiClass) element;
-            for (PsiMethod method : psiClass.getAllMethods()) {
-                PsiAnnotation annotation = AnnotationUtil.findAnnotation(method, true, TEST_ANNOTATION_FQN);
-                if (annotation != null) {
-                    if (checkDisabled) {
-                        if (isDisabled(annotation)) {
-                            continue;
-                        }
-                    }
-                    return true;
-                }
-                if (AnnotationUtil.isAnnotated(method, FACTORY_ANNOTATION_FQN, 0)) {
-                    return true;
-                }
-                if (checkJavadoc && getTextJavaDoc(method) != null) {
-                    return true;
-                }
+            int mask = TEST_METHOD | FACTORY_METHOD;
+            if (!checkDisabled) {
+                mask |= DISABLED_TEST_METHOD;
             }
-            return false;
+            if (checkJavadoc) {
+                mask |= JAVADOC_TEST_METHOD;
+            }
+            return (getTestMethodsSummary((PsiClass) element) & mask) != 0;
         }
         else {
             //even if it has a global test, we ignore non-public and static methods
@@ -290,6 +298,70 @@ public class TestNGUtil {
         return false;
     }
 
+    /**
+     * Kinds of the test-relevant methods declared in the class or any of its supers, or-ed together. Like
+     * {@link PsiClass#getAllMethods()}, an inherited test method still counts when it is overridden without the
+     * annotation. Built from the summaries of the direct supers, so the abstract base classes of a large test hierarchy
+     * are inspected once and shared by all their subclasses.
+     */
+    private static int getTestMethodsSummary(@NotNull PsiClass psiClass) {
+        return LanguageCachedValueUtil.getCachedValue(
+            psiClass,
+            () -> CachedValueProvider.Result.create(
+                computeTestMethodsSummary(psiClass),
+                PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT
+            )
+        );
+    }
+
+    private static int computeTestMethodsSummary(@NotNull PsiClass psiClass) {
+        int summary = 0;
+        for (PsiClass superClass : psiClass.getSupers()) {
+            final Integer superSummary =
+                RecursionManager.doPreventingRecursion(psiClass, false, () -> getTestMethodsSummary(superClass));
+            if (superSummary != null) {
+                summary |= superSummary;
+            }
+        }
+        for (PsiMethod method : psiClass.getMethods()) {
+            summary |= getTestMethodKind(method);
+        }
+        return summary;
+    }
+
+    private static int getTestMethodKind(PsiMethod method) {
+        final PsiAnnotation annotation = AnnotationUtil.findAnnotation(method, true, TEST_ANNOTATION_FQN);
+        if (annotation != null) {
+            return isDisabled(annotation) ? DISABLED_TEST_METHOD : TEST_METHOD;
+        }
+        int kind = 0;
+        if (AnnotationUtil.isAnnotated(method, FACTORY_ANNOTATION_FQN, 0)) {
+            kind |= FACTORY_METHOD;
+        }
+        if (getTextJavaDoc(method) != null) {
+            kind |= JAVADOC_TEST_METHOD;
+        }
+        return kind;
+    }
+
+    /**
+     * TestNG matches {@code dependsOnGroups} and {@code dependsOnMethods} values as regular expressions.
+     *
+     * @return the compiled value when it uses regular expression syntax other than dots, null for plain names and invalid patterns
+     */
+    @Nullable
+    public static Pattern getDependencyPattern(@NotNull String value) {
+        if (!StringUtil.containsAnyChar(value, DEPENDENCY_PATTERN_CHARS)) {
+            return null;
+        }
+        try {
+            return Pattern.compile(value);
+        }
+        catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
     public static boolean isDisabled(PsiAnnotation annotation) {
         final PsiAnnotationMemberValue attributeValue = annotation.findDeclaredAttributeValue("enabled");
         return attributeValue != null && attributeValue.textMatches("false");
@@ -317,10 +389,17 @@ public class TestNGUtil {
     }
 
     public static Set<String> getAnnotationValues(String parameter, PsiClass... classes) {
-        Map<String, Collection<String>> results = new HashMap<>();
-        final HashSet<String> set = new HashSet<>();
-        results.put(parameter, set);
-        collectAnnotationValues(results, null, classes);
+        final List<PsiClass> testClasses = new ArrayList<>(classes.length);
+        for (PsiClass psiClass : classes) {
+            ProgressManager.checkCanceled();
+            if (psiClass != null && ReadAction.compute(() -> hasTest(psiClass))) {
+                testClasses.add(psiClass);
+            }
+        }
+        final Set<String> set = new HashSet<>();
+        for (Map<String, Set<String>> values : collectAnnotationValues(testClasses, Collections.singleton(parameter), false).values()) {
+            set.addAll(values.get(parameter));
+        }
         return set;
     }
 
@@ -328,9 +407,7 @@ public class TestNGUtil {
      * @return were javadoc params used
      */
     public static void collectAnnotationValues(final Map<String, Collection<String>> results, PsiMethod[] psiMethods, PsiClass... classes) {
-        final Set<String> test = new HashSet<>(1);
-        test.add(TEST_ANNOTATION_FQN);
-        ContainerUtil.addAll(test, CONFIG_ANNOTATIONS_FQN);
+        final Set<String> test = getTestAndConfigAnnotations();
         if (psiMethods != null) {
             for (final PsiMethod psiMethod : psiMethods) {
                 ApplicationManager.getApplication()
@@ -359,21 +436,134 @@ public class TestNGUtil {
         }
     }
 
+    /**
+     * Bulk variant of {@link #collectAnnotationValues(Map, PsiMethod[], PsiClass...)} for large class lists: the classes are
+     * expected to be test or configuration classes already, each TestNG annotation is visited once for all requested
+     * attributes, and the classes are processed in chunks with a read action per chunk.
+     *
+     * @param checkHierarchy also collect values declared on superclasses and their methods
+     * @return interned values per class and attribute; classes without any value are not in the map
+     */
+    @NotNull
+    public static Map<PsiClass, Map<String, Set<String>>> collectAnnotationValues(
+        @NotNull Collection<PsiClass> classes,
+        @NotNull Set<String> parameters,
+        boolean checkHierarchy
+    ) {
+        final Set<String> test = getTestAndConfigAnnotations();
+        final Map<String, String> interned = new HashMap<>();
+        final Map<PsiClass, Map<String, Set<String>>> results = new LinkedHashMap<>();
+        final List<PsiClass> classList = new ArrayList<>(classes);
+        for (int start = 0; start < classList.size(); start += ANNOTATION_VALUES_CHUNK_SIZE) {
+            ProgressManager.checkCanceled();
+            final List<PsiClass> chunk = classList.subList(start, Math.min(start + ANNOTATION_VALUES_CHUNK_SIZE, classList.size()));
+            ApplicationManager.getApplication().runReadAction(() ->
+            {
+                for (PsiClass psiClass : chunk) {
+                    final Map<String, Set<String>> values = new HashMap<>();
+                    final BiConsumer<String, String> consumer = (parameter, value) ->
+                    {
+                        if (value != null) {
+                            values.computeIfAbsent(parameter, p -> new HashSet<>()).add(interned.computeIfAbsent(value, v -> v));
+                        }
+                    };
+                    final Set<PsiClass> visited = new HashSet<>();
+                    for (PsiClass aClass = psiClass; aClass != null && visited.add(aClass); aClass = checkHierarchy ? aClass.getSuperClass() : null) {
+                        if (CommonClassNames.JAVA_LANG_OBJECT.equals(aClass.getQualifiedName())) {
+                            break;
+                        }
+                        processAnnotationAttributeValues(AnnotationUtil.findAnnotation(aClass, test), aClass, parameters, consumer);
+                        for (PsiMethod method : aClass.getMethods()) {
+                            processAnnotationAttributeValues(AnnotationUtil.findAnnotation(method, test), method, parameters, consumer);
+                        }
+                    }
+                    if (!values.isEmpty()) {
+                        final Map<String, Set<String>> compact = new HashMap<>(values.size());
+                        for (Map.Entry<String, Set<String>> entry : values.entrySet()) {
+                            compact.put(entry.getKey(), Set.copyOf(entry.getValue()));
+                        }
+                        results.put(psiClass, compact);
+                    }
+                }
+            });
+        }
+        return results;
+    }
+
+    /**
+     * @return project classes extending {@code junit.framework.TestCase} or with JUnit 4 annotated methods, found through the
+     * inheritor and annotation indices; callers still filter them with {@link #inheritsJUnitTestCase(PsiClass)} and
+     * {@link #containsJunitAnnotations(PsiClass)}
+     */
+    @NotNull
+    public static Set<PsiClass> findJUnitTestClasses(@NotNull Project project) {
+        final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        final GlobalSearchScope allScope = GlobalSearchScope.allScope(project);
+        final JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(project);
+        final Set<PsiClass> classes = new LinkedHashSet<>();
+        final PsiClass testCase = psiFacade.findClass("junit.framework.TestCase", allScope);
+        if (testCase != null) {
+            for (PsiClass inheritor : ClassInheritorsSearch.search(testCase, scope, true)) {
+                ProgressManager.checkCanceled();
+                classes.add(inheritor);
+            }
+        }
+        for (String annotationFqn : JUNIT_ANNOTATIONS) {
+            final PsiClass annotationClass = psiFacade.findClass(annotationFqn, allScope);
+            if (annotationClass == null) {
+                continue;
+            }
+            for (PsiMember member : AnnotatedMembersSearch.search(annotationClass, scope)) {
+                ProgressManager.checkCanceled();
+                final PsiClass psiClass = member.getContainingClass();
+                if (psiClass != null) {
+                    classes.add(psiClass);
+                }
+            }
+        }
+        return classes;
+    }
+
+    static Set<String> getTestAndConfigAnnotations() {
+        final Set<String> test = new HashSet<>(CONFIG_ANNOTATIONS_FQN.length + 1);
+        test.add(TEST_ANNOTATION_FQN);
+        ContainerUtil.addAll(test, CONFIG_ANNOTATIONS_FQN);
+        return test;
+    }
+
     private static void appendAnnotationAttributeValues(
         final Map<String, Collection<String>> results,
         final PsiAnnotation annotation,
         final PsiDocCommentOwner commentOwner
     ) {
-        for (String parameter : results.keySet()) {
-            final Collection<String> values = results.get(parameter);
-            if (annotation != null) {
-                final PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue(parameter);
-                if (value != null) {
-                    values.addAll(extractValuesFromParameter(value));
+        processAnnotationAttributeValues(annotation, commentOwner, results.keySet(), (parameter, value) -> results.get(parameter).add(value));
+    }
+
+    static void processAnnotationAttributeValues(
+        final PsiAnnotation annotation,
+        final PsiDocCommentOwner commentOwner,
+        final Set<String> parameters,
+        final BiConsumer<String, String> consumer
+    ) {
+        if (annotation != null) {
+            for (PsiNameValuePair pair : annotation.getParameterList().getAttributes()) {
+                final String name = pair.getName() != null ? pair.getName() : PsiAnnotation.DEFAULT_REFERENCED_METHOD_NAME;
+                final PsiAnnotationMemberValue value = pair.getValue();
+                if (value != null && parameters.contains(name)) {
+                    for (String s : extractValuesFromParameter(value)) {
+                        consumer.accept(name, s);
+                    }
                 }
             }
-            else {
-                values.addAll(extractAnnotationValuesFromJavaDoc(getTextJavaDoc(commentOwner), parameter));
+        }
+        else {
+            final PsiDocTag tag = getTextJavaDoc(commentOwner);
+            if (tag != null) {
+                for (String parameter : parameters) {
+                    for (String s : extractAnnotationValuesFromJavaDoc(tag, parameter)) {
+                        consumer.accept(parameter, s);
+                    }
+                }
             }
         }
     }
@@ -401,18 +591,23 @@ public class TestNGUtil {
         if (value instanceof PsiArrayInitializerMemberValue) {
             for (PsiElement child : value.getChildren()) {
                 if (child instanceof PsiLiteralExpression) {
-                    results.add((String) ((PsiLiteralExpression) child).getValue());
+                    results.add(getLiteralValue((PsiLiteralExpression) child));
                 }
             }
         }
         else {
             if (value instanceof PsiLiteralExpression) {
-                results.add((String) ((PsiLiteralExpression) value).getValue());
+                results.add(getLiteralValue((PsiLiteralExpression) value));
             }
         }
         return results;
     }
 
+    private static String getLiteralValue(PsiLiteralExpression literal) {
+        final Object value = literal.getValue();
+        return value == null || value instanceof String ? (String) value : value.toString();
+    }
+
     @Nullable
     public static PsiClass[] getAllTestClasses(final TestClassFilter filter, boolean sync) {
         final PsiClass[][] holder = new PsiClass[1][];
@@ -443,6 +638,64 @@ public class TestNGUtil {
         return holder[0];
     }
 
+    /**
+     * Package-restricted variant of {@link #getAllTestClasses(TestClassFilter, boolean)}. Instead of enumerating every class
+     * of the scope it walks the package directories, skipping directories and files outside the filter scope before their PSI
+     * is loaded.
+     */
+    @NotNull
+    public static PsiClass[] getAllTestClasses(final TestClassFilter filter, final PsiJavaPackage psiPackage, final boolean recursive) {
+        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        final GlobalSearchScope scope = GlobalSearchScope.projectScope(filter.getProject()).intersectWith(filter.getScope());
+        final Collection<PsiClass> set = new LinkedHashSet<>();
+        final Deque<PsiDirectory> directories = new ArrayDeque<>();
+        ContainerUtil.addAll(directories, ReadAction.compute(() -> psiPackage.getDirectories(scope)));
+        while (!directories.isEmpty()) {
+            ProgressManager.checkCanceled();
+            final PsiDirectory directory = directories.poll();
+            final List<PsiClass> candidates = new ArrayList<>();
+            ReadAction.run(() ->
+            {
+                if (!directory.isValid()) {
+                    return;
+                }
+                if (recursive) {
+                    for (PsiDirectory subdirectory : directory.getSubdirectories()) {
+                        if (scope.contains(subdirectory.getVirtualFile())) {
+                            directories.add(subdirectory);
+                        }
+                    }
+                }
+                final PsiManager psiManager = directory.getManager();
+                for (VirtualFile virtualFile : directory.getVirtualFile().getChildren()) {
+                    if (virtualFile.isDirectory() || !scope.contains(virtualFile)) {
+                        continue;
+                    }
+                    final PsiFile file = psiManager.findFile(virtualFile);
+                    if (file instanceof PsiClassOwner) {
+                        collectClasses(((PsiClassOwner) file).getClasses(), candidates);
+                    }
+                }
+            });
+            for (PsiClass psiClass : candidates) {
+                if (filter.isAccepted(psiClass)) {
+                    if (indicator != null) {
+                        indicator.setText2("Found test class " + ReadAction.compute(psiClass::getQualifiedName));
+                    }
+                    set.add(psiClass);
+                }
+            }
+        }
+        return set.toArray(PsiClass.EMPTY_ARRAY);
+    }
+
+    private static void collectClasses(PsiClass[] classes, List<PsiClass> result) {
+        for (PsiClass psiClass : classes) {
+            result.add(psiClass);
+            collectClasses(psiClass.getInnerClasses(), result);
+        }
+    }
+
     public static PsiAnnotation[] getTestNGAnnotations(PsiElement element) {
         PsiElementProcessor.CollectFilteredElements<PsiAnnotation> processor = new PsiElementProcessor.CollectFilteredElements<>(e ->
         {
@@ -486,6 +739,35 @@ public class TestNGUtil {
         return true;
     }
 
+    /**
+     * Asks once per module of the elements whether TestNG may be added to its classpath.
+     *
+     * @return modules where the user declined
+     */
+    @NotNull
+    public static Set<Module> checkTestNGInClasspath(@NotNull Collection<? extends SmartPsiElementPointer<?>> pointers) {
+        final Map<Module, PsiElement> modules = ReadAction.compute(() -> {
+            final Map<Module, PsiElement> result = new LinkedHashMap<>();
+            for (SmartPsiElementPointer<?> pointer : pointers) {
+                final PsiElement element = pointer.getElement();
+                final Module module = element != null ? ModuleUtilCore.findModuleForPsiElement(element) : null;
+                if (module != null) {
+                    result.putIfAbsent(module, element);
+                }
+            }
+            return result;
+        });
+        final Set<Module> declined = new HashSet<>();
+        ApplicationManager.getApplication().invokeAndWait(() -> {
+            for (Map.Entry<Module, PsiElement> entry : modules.entrySet()) {
+                if (!checkTestNGInClasspath(entry.getValue())) {
+                    declined.add(entry.getKey());
+                }
+            }
+        });
+        return declined;
+    }
+
     public static boolean containsJunitAnnotations(PsiClass psiClass) {
         if (psiClass != null) {
             for (PsiMethod method : psiClass.getMethods()) {
@@ -530,25 +812,35 @@ public class TestNGUtil {
         return aListenerClass != null && psiClass.isInheritor(aListenerClass, true);
     }
 
+    /**
+     * Whether the file is a local XML file with a {@code suite} root tag. The answer is kept on the file until its
+     * modification stamp changes: the suite configuration producer asks again on every context change in the file,
+     * such as each run gutter or popup update, and should not re-read the header each time.
+     */
     public static boolean isTestngXML(final VirtualFile virtualFile) {
         if ("xml".equalsIgnoreCase(virtualFile.getExtension()) && virtualFile.isInLocalFileSystem() && virtualFile.isValid()) {
-            final String result;
-            try {
-                result =
-                    NanoXmlUtil.parseHeader(new InputStreamReader(new BufferExposingByteArrayInputStream(virtualFile.contentsToByteArray())))
-                        .getRootTagLocalName();
-            }
-            catch (IOException e) {
-                return false;
-            }
-
-            if (result != null && result.equals(SUITE_TAG_NAME)) {
-                return true;
-            }
+            final long stamp = virtualFile.getModificationStamp();
+            final Pair<Long, Boolean> cached = virtualFile.getUserData(TESTNG_XML_KEY);
+            if (cached != null && cached.getFirst() == stamp) {
+                return cached.getSecond();
+            }
+            final boolean result = hasSuiteRootTag(virtualFile);
+            virtualFile.putUserData(TESTNG_XML_KEY, Pair.create(stamp, result));
+            return result;
         }
         return false;
     }
 
+    private static boolean hasSuiteRootTag(final VirtualFile virtualFile) {
+        // the header parser stops at the root tag, so only the beginning of the file is read
+        try (InputStreamReader reader = new InputStreamReader(virtualFile.getInputStream(), virtualFile.getCharset())) {
+            return SUITE_TAG_NAME.equals(NanoXmlUtil.parseHeader(reader).getRootTagLocalName());
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
     public static PsiClass getProviderClass(final PsiElement element, final PsiClass topLevelClass) {
         final PsiAnnotation annotation = PsiTreeUtil.getParentOfType(element, PsiAnnotation.class);
         if (annotation != null) {
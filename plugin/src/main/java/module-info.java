@@ -24,5 +24,8 @@ module consulo.testng
 	opens com.theoryinpractice.testng.inspection to consulo.util.xml.serializer;
 
 	// cache value manager checks
+	opens com.theoryinpractice.testng to consulo.application.impl;
+	opens com.theoryinpractice.testng.inspection to consulo.application.impl;
 	opens com.theoryinpractice.testng.util to consulo.application.impl;
+	opens com.theoryinpractice.testng.model to consulo.application.impl;
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@Test
+public class PatternMatcherTest {
+    public void testLiteralNames() {
+        final TestNGTestPattern.PatternMatcher matcher = new TestNGTestPattern.PatternMatcher(Arrays.asList("a.b.Foo", "a.b.Outer$Inner"));
+        Assert.assertTrue(matcher.matches("a.b.Foo"));
+        Assert.assertTrue(matcher.matches("a.b.Outer.Inner"));
+        Assert.assertFalse(matcher.matches("a.b.Foo2"));
+    }
+
+    public void testPrefixes() {
+        final TestNGTestPattern.PatternMatcher matcher = new TestNGTestPattern.PatternMatcher(Collections.singletonList("a.b.*"));
+        Assert.assertTrue(matcher.matches("a.b.Foo"));
+        Assert.assertTrue(matcher.matches("a.b.c.Bar"));
+        Assert.assertFalse(matcher.matches("a.c.Foo"));
+    }
+
+    public void testCombinedRegexps() {
+        final TestNGTestPattern.PatternMatcher matcher = new TestNGTestPattern.PatternMatcher(Arrays.asList(".*Foo", "x\\..*Test", "[invalid"));
+        Assert.assertTrue(matcher.matches("a.Foo"));
+        Assert.assertTrue(matcher.matches("x.y.MyTest"));
+        Assert.assertFalse(matcher.matches("a.Bar"));
+        Assert.assertFalse(matcher.isEmpty());
+    }
+
+    public void testBackReferencesKeepTheirGroups() {
+        final TestNGTestPattern.PatternMatcher matcher = new TestNGTestPattern.PatternMatcher(Arrays.asList("(a+)\\.Foo", "(\\w+)\\.\\1Test"));
+        Assert.assertTrue(matcher.matches("aa.Foo"));
+        Assert.assertTrue(matcher.matches("x.xTest"));
+        Assert.assertFalse(matcher.matches("x.yTest"));
+    }
+
+    public void testNumberedBackReferenceDetection() {
+        Assert.assertTrue(TestNGTestPattern.PatternMatcher.hasNumberedBackReference("(a)\\1"));
+        Assert.assertFalse(TestNGTestPattern.PatternMatcher.hasNumberedBackReference("a\\\\1"));
+        Assert.assertFalse(TestNGTestPattern.PatternMatcher.hasNumberedBackReference("a\\.b"));
+    }
+
+    public void testEmpty() {
+        Assert.assertTrue(new TestNGTestPattern.PatternMatcher(Collections.singletonList("[invalid")).isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.theoryinpractice.testng.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+public class TestNGDependencyGraphTest {
+    public void testAcyclicGraphHasNoCycles() {
+        final Map<String, List<String>> edges = graph("a->b", "b->c", "a->c");
+        Assert.assertTrue(TestNGDependencyGraph.findCycles(edges.keySet(), edges::get).isEmpty());
+    }
+
+    public void testCyclesAreReportedPerComponent() {
+        final Map<String, List<String>> edges = graph("a->b", "b->a", "b->c", "c->d", "d->e", "e->c", "e->f");
+        final Set<Set<String>> cycles = new HashSet<>();
+        for (List<String> cycle : TestNGDependencyGraph.findCycles(edges.keySet(), edges::get)) {
+            cycles.add(new HashSet<>(cycle));
+        }
+        Assert.assertEquals(cycles, Set.of(Set.of("a", "b"), Set.of("c", "d", "e")));
+    }
+
+    public void testSelfDependencyIsACycle() {
+        final Map<String, List<String>> edges = graph("a->a", "a->b");
+        Assert.assertEquals(TestNGDependencyGraph.findCycles(edges.keySet(), edges::get), List.of(List.of("a")));
+    }
+
+    public void testLongChainDoesNotOverflow() {
+        final Map<Integer, List<Integer>> edges = new LinkedHashMap<>();
+        final int length = 100_000;
+        for (int i = 0; i < length; i++) {
+            edges.put(i, List.of((i + 1) % length));
+        }
+        final List<List<Integer>> cycles = TestNGDependencyGraph.findCycles(edges.keySet(), edges::get);
+        Assert.assertEquals(cycles.size(), 1);
+        Assert.assertEquals(cycles.get(0).size(), length);
+    }
+
+    private static Map<String, List<String>> graph(String... arcs) {
+        final Map<String, List<String>> edges = new LinkedHashMap<>();
+        for (String arc : arcs) {
+            final String[] ends = arc.split("->");
+            edges.computeIfAbsent(ends[0], k -> new ArrayList<>()).add(ends[1]);
+            edges.computeIfAbsent(ends[1], k -> new ArrayList<>());
+        }
+        return edges;
+    }
+}
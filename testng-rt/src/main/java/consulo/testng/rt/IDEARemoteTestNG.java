@@ -30,7 +30,13 @@ import java.util.List;
 
 public class IDEARemoteTestNG extends TestNG
 {
+	private static final String REPEAT_COUNT_PROPERTY = "consulo.testng.repeat.count";
+	private static final String REPEAT_UNTIL_FAILURE_PROPERTY = "consulo.testng.repeat.untilFailure";
+
 	private final String myParam;
+	private final List<Object> myRunListeners = new ArrayList<Object>();
+	private CommandLineArgs myArgs;
+	private String myOutputDirectory;
 
 	public IDEARemoteTestNG(String param)
 	{
@@ -50,75 +56,167 @@ public class IDEARemoteTestNG extends TestNG
 	{
 		try
 		{
-			initializeSuitesAndJarFile();
-
-			List<XmlSuite> suites = Lists.newArrayList();
-			calculateAllSuites(m_suites, suites);
-			if(suites.size() > 0)
+			if(initializeSuites())
 			{
+				final IDEATestNGRemoteListener listener = new IDEATestNGRemoteListener();
+				attachListeners(listener);
+				final TestNGResultArchive archive = TestNGResultArchive.create(myOutputDirectory);
+				if(archive != null)
+				{
+					addRunListener(archive);
+				}
+				runRepeatedly(listener);
+				if(archive != null)
+				{
+					archive.close();
+				}
+				System.exit(0);
+			}
+			else
+			{
+				System.out.println("##teamcity[enteredTheMatrix]");
+				System.err.println("Nothing found to run");
+			}
+		}
+		catch(Throwable cause)
+		{
+			cause.printStackTrace(System.err);
+		}
+	}
 
-				for(XmlSuite suite : suites)
+	/**
+	 * @return whether there are suites to run
+	 */
+	private boolean initializeSuites()
+	{
+		initializeSuitesAndJarFile();
+
+		List<XmlSuite> suites = Lists.newArrayList();
+		calculateAllSuites(m_suites, suites);
+		if(suites.isEmpty())
+		{
+			return false;
+		}
+		for(XmlSuite suite : suites)
+		{
+			final List<XmlTest> tests = suite.getTests();
+			for(XmlTest test : tests)
+			{
+				try
 				{
-					final List<XmlTest> tests = suite.getTests();
-					for(XmlTest test : tests)
+					if(myParam != null)
 					{
-						try
+						for(XmlClass aClass : test.getXmlClasses())
 						{
-							if(myParam != null)
+							List<XmlInclude> includes = new ArrayList<XmlInclude>();
+							for(XmlInclude include : aClass.getIncludedMethods())
 							{
-								for(XmlClass aClass : test.getXmlClasses())
-								{
-									List<XmlInclude> includes = new ArrayList<XmlInclude>();
-									for(XmlInclude include : aClass.getIncludedMethods())
-									{
-										includes.add(new XmlInclude(include.getName(), Collections.singletonList(Integer.parseInt(myParam)), 0));
-									}
-									aClass.setIncludedMethods(includes);
-								}
+								includes.add(new XmlInclude(include.getName(), Collections.singletonList(Integer.parseInt(myParam)), 0));
 							}
-						}
-						catch(NumberFormatException e)
-						{
-							System.err.println("Invocation number: expected integer but found: " + myParam);
+							aClass.setIncludedMethods(includes);
 						}
 					}
 				}
+				catch(NumberFormatException e)
+				{
+					System.err.println("Invocation number: expected integer but found: " + myParam);
+				}
+			}
+		}
+		return true;
+	}
 
-				attachListeners(new IDEATestNGRemoteListener());
+	/**
+	 * Runs the suites {@code consulo.testng.repeat.count} times in this JVM, or until the first failing iteration when
+	 * {@code consulo.testng.repeat.untilFailure} is set; a non-positive count together with the latter repeats until a failure.
+	 * An iteration aborted by the {@link TestNGAbortPolicy} ends the repetition.
+	 * <p>
+	 * TestNG keeps suite runners, results and listener instances between runs, so every iteration after the first one
+	 * runs on a fresh instance configured from the same arguments, sharing only the listeners registered here.
+	 */
+	private void runRepeatedly(IDEATestNGRemoteListener listener)
+	{
+		final int count = Integer.getInteger(REPEAT_COUNT_PROPERTY, 1).intValue();
+		final boolean untilFailure = Boolean.getBoolean(REPEAT_UNTIL_FAILURE_PROPERTY);
+		if(count == 1 || count <= 0 && !untilFailure)
+		{
+			super.run();
+			return;
+		}
+		for(int iteration = 1; count <= 0 || iteration <= count; iteration++)
+		{
+			listener.onIterationStart();
+			if(iteration == 1)
+			{
 				super.run();
-				System.exit(0);
 			}
 			else
 			{
-				System.out.println("##teamcity[enteredTheMatrix]");
-				System.err.println("Nothing found to run");
+				final IDEARemoteTestNG testNG = new IDEARemoteTestNG(myParam);
+				testNG.configure(myArgs);
+				if(!testNG.initializeSuites())
+				{
+					break;
+				}
+				for(Object runListener : myRunListeners)
+				{
+					testNG.addListener(runListener);
+				}
+				testNG.runOnce();
+			}
+			final boolean failed = listener.onIterationFinish(iteration, count);
+			if(failed && untilFailure || listener.isAborted())
+			{
+				break;
 			}
 		}
-		catch(Throwable cause)
-		{
-			cause.printStackTrace(System.err);
-		}
+	}
+
+	private void runOnce()
+	{
+		super.run();
+	}
+
+	/**
+	 * Adds a listener which is also registered with the fresh instances of repeated runs.
+	 */
+	public void addRunListener(Object listener)
+	{
+		myRunListeners.add(listener);
+		addListener(listener);
 	}
 
 	@Override
 	public void configure(CommandLineArgs cla)
 	{
 		super.configure(cla);
+		myArgs = cla;
+		myOutputDirectory = cla.outputDirectory;
 	}
 
 	private void attachListeners(IDEATestNGRemoteListener listener)
 	{
-		addListener((Object) new IDEATestNGSuiteListener(listener));
-		addListener((Object) new IDEATestNGTestListener(listener));
+		addRunListener(new IDEATestNGSuiteListener(listener));
+		addRunListener(new IDEATestNGTestListener(listener));
+		final TestNGTimeoutWatchdog watchdog = TestNGTimeoutWatchdog.start(listener);
+		if(watchdog != null)
+		{
+			addRunListener(watchdog);
+		}
+		final TestNGProgressReporter progressReporter = TestNGProgressReporter.create(listener);
+		if(progressReporter != null)
+		{
+			addRunListener(progressReporter);
+		}
 		try
 		{
 			Class<?> configClass = Class.forName("consulo.testng.rt.IDEATestNGConfigurationListener");
 			Object configurationListener = configClass.getConstructor(new Class[]{IDEATestNGRemoteListener.class}).newInstance(listener);
-			addListener((Object) configurationListener);
+			addRunListener(configurationListener);
 
 			Class<?> invokeClass = Class.forName("consulo.testng.rt.IDEATestNGInvokedMethodListener");
 			Object invokedMethodListener = invokeClass.getConstructor(new Class[]{IDEATestNGRemoteListener.class}).newInstance(listener);
-			addListener((Object) invokedMethodListener);
+			addRunListener(invokedMethodListener);
 
 			//start with configuration started if invoke method listener was not added, otherwise with
 			configClass.getMethod("setIgnoreStarted").invoke(configurationListener);
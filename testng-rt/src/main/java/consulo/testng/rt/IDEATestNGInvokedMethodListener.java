@@ -18,6 +18,7 @@ package consulo.testng.rt;
 import org.testng.IInvokedMethod;
 import org.testng.IInvokedMethodListener;
 import org.testng.ITestResult;
+import org.testng.SkipException;
 
 public class IDEATestNGInvokedMethodListener implements IInvokedMethodListener {
   private final IDEATestNGRemoteListener myListener;
@@ -28,7 +29,13 @@ public class IDEATestNGInvokedMethodListener implements IInvokedMethodListener {
 
   public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
     synchronized (myListener) {
-      if (!testResult.getMethod().isTest()) {
+      if (testResult.getMethod().isTest()) {
+        //configuration methods keep running so that @After* cleanup still happens after an abort
+        if (myListener.isAborted()) {
+          throw new SkipException("Run aborted: " + myListener.getAbortReason());
+        }
+      }
+      else {
         myListener.onConfigurationStart(myListener.createDelegated(testResult));
       }
     }
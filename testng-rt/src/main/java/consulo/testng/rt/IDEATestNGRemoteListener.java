@@ -20,13 +20,25 @@ public class IDEATestNGRemoteListener {
   private final Map<ExposedTestResult, String> myParamsMap = new HashMap<ExposedTestResult, String>();
   private final Map<ExposedTestResult, DelegatedResult> myResults = new HashMap<ExposedTestResult, DelegatedResult>();
   private int mySkipped = 0;
+  private int myIterationPassed = 0;
+  private int myIterationFailed = 0;
+  private int myIterationSkipped = 0;
+  private final TestNGAbortPolicy myAbortPolicy;
+  private String myAbortReason;
+  private final Set<ExposedTestResult> myNotRun = new LinkedHashSet<ExposedTestResult>();
+  private final Set<ExposedTestResult> myTimedOut = new HashSet<ExposedTestResult>();
 
   public IDEATestNGRemoteListener() {
     this(System.out);
   }
 
   public IDEATestNGRemoteListener(PrintStream printStream) {
+    this(printStream, TestNGAbortPolicy.fromSystemProperties());
+  }
+
+  public IDEATestNGRemoteListener(PrintStream printStream, TestNGAbortPolicy abortPolicy) {
     myPrintStream = printStream;
+    myAbortPolicy = abortPolicy;
     myPrintStream.println("##teamcity[enteredTheMatrix]");
   }
 
@@ -49,7 +61,7 @@ public class IDEATestNGRemoteListener {
 
   public synchronized void onFinish(ISuite suite) {
     try {
-      if (suite != null && suite.getAllInvokedMethods().size() + mySkipped < suite.getAllMethods().size()) {
+      if (suite != null && myAbortReason == null && suite.getAllInvokedMethods().size() + mySkipped < suite.getAllMethods().size()) {
         for (ITestNGMethod method : suite.getAllMethods()) {
           if (method.isTest()) {
             boolean found = false;
@@ -75,6 +87,81 @@ public class IDEATestNGRemoteListener {
       onSuiteFinish(myCurrentSuites.remove(i));
     }
     myCurrentSuites.clear();
+    reportNotRun();
+  }
+
+  public synchronized boolean isAborted() {
+    return myAbortReason != null;
+  }
+
+  public synchronized String getAbortReason() {
+    return myAbortReason;
+  }
+
+  private void checkAbort(boolean configFailure) {
+    if (myAbortReason == null) {
+      myAbortReason = myAbortPolicy.getAbortReason(myIterationPassed, myIterationFailed, configFailure);
+      if (myAbortReason != null) {
+        myPrintStream.println("\nAborting run: " + myAbortReason);
+      }
+    }
+  }
+
+  /**
+   * Reports the tests skipped after the run was aborted as a single node instead of one ignored test each.
+   */
+  private void reportNotRun() {
+    if (myNotRun.isEmpty()) {
+      return;
+    }
+    final StringBuilder names = new StringBuilder();
+    for (ExposedTestResult result : myNotRun) {
+      names.append(result.getClassName()).append('.').append(result.getDisplayMethodName()).append('\n');
+    }
+    final String name = "Not run (" + myNotRun.size() + ")";
+    myNotRun.clear();
+
+    final Map<String, String> attrs = new LinkedHashMap<String, String>();
+    attrs.put("name", name);
+    myPrintStream.println("\n" + MapSerializerUtil.asString("testStarted", attrs));
+    attrs.put("out", names.toString());
+    myPrintStream.println(MapSerializerUtil.asString("testStdOut", attrs));
+    attrs.remove("out");
+    attrs.put("message", "Run aborted: " + myAbortReason);
+    myPrintStream.println(MapSerializerUtil.asString("testIgnored", attrs));
+    attrs.remove("message");
+    myPrintStream.println(MapSerializerUtil.asString("testFinished", attrs));
+  }
+
+  public synchronized void onIterationStart() {
+    myInvocationCounts.clear();
+    myParamsMap.clear();
+    myResults.clear();
+    mySkipped = 0;
+    myIterationPassed = 0;
+    myIterationFailed = 0;
+    myIterationSkipped = 0;
+    myAbortReason = null;
+    myNotRun.clear();
+    myTimedOut.clear();
+  }
+
+  /**
+   * Reports the statistics of the iteration as a {@code message} service message.
+   *
+   * @return whether the iteration had failed tests or configurations
+   */
+  public synchronized boolean onIterationFinish(int iteration, int count) {
+    final Map<String, String> attrs = new LinkedHashMap<String, String>();
+    attrs.put("text", "Iteration " + iteration + (count > 0 ? "/" + count : "") + ": " +
+                      myIterationPassed + " passed, " + myIterationFailed + " failed, " + myIterationSkipped + " skipped");
+    attrs.put("iteration", String.valueOf(iteration));
+    attrs.put("passed", String.valueOf(myIterationPassed));
+    attrs.put("failed", String.valueOf(myIterationFailed));
+    attrs.put("skipped", String.valueOf(myIterationSkipped));
+    attrs.put("status", myIterationFailed > 0 ? "WARNING" : "NORMAL");
+    myPrintStream.println("\n" + MapSerializerUtil.asString("message", attrs));
+    return myIterationFailed > 0;
   }
 
   public synchronized void onConfigurationSuccess(ITestResult result, boolean start) {
@@ -86,29 +173,86 @@ public class IDEATestNGRemoteListener {
   }
 
   public synchronized void onConfigurationFailure(ITestResult result, boolean start) {
+    myIterationFailed++;
     final DelegatedResult delegatedResult = createDelegated(result);
     if (start) {
       onConfigurationStart(delegatedResult);
     }
     onConfigurationFailure(delegatedResult);
+    checkAbort(true);
   }
 
   public synchronized void onConfigurationSkip(ITestResult itr) {}
 
   public synchronized void onTestStart(ITestResult result) {
-    onTestStart(createDelegated(result));
+    final DelegatedResult delegatedResult = createDelegated(result);
+    if (myAbortReason != null) {
+      myNotRun.add(delegatedResult);
+      return;
+    }
+    onTestStart(delegatedResult);
   }
 
   public synchronized void onTestSuccess(ITestResult result) {
-    onTestFinished(createDelegated(result));
+    final DelegatedResult delegatedResult = createDelegated(result);
+    if (myTimedOut.remove(delegatedResult)) {
+      return;
+    }
+    myIterationPassed++;
+    onTestFinished(delegatedResult);
   }
 
   public synchronized void onTestFailure(ITestResult result) {
-    onTestFailure(createDelegated(result));
+    final DelegatedResult delegatedResult = createDelegated(result);
+    if (myTimedOut.remove(delegatedResult)) {
+      return;
+    }
+    myIterationFailed++;
+    onTestFailure(delegatedResult);
+    checkAbort(false);
   }
 
   public synchronized void onTestSkipped(ITestResult result) {
-    onTestSkipped(createDelegated(result));
+    final DelegatedResult delegatedResult = createDelegated(result);
+    if (myTimedOut.remove(delegatedResult)) {
+      return;
+    }
+    myIterationSkipped++;
+    if (myAbortReason != null && !myParamsMap.containsKey(delegatedResult)) {
+      myNotRun.add(delegatedResult);
+      return;
+    }
+    onTestSkipped(delegatedResult);
+  }
+
+  /**
+   * Reports a test that is still running as failed with the given thread dump and finishes it; the result TestNG
+   * reports once the test returns is dropped. With {@code abort} the run is aborted, see {@link TestNGAbortPolicy#getTimeoutAbortReason}.
+   */
+  public synchronized void onTestTimeout(ITestResult result, long timeoutMillis, String threadDump, boolean abort) {
+    final DelegatedResult delegatedResult = createDelegated(result);
+    if (!myParamsMap.containsKey(delegatedResult) || !myTimedOut.add(delegatedResult)) {
+      return;
+    }
+    myIterationFailed++;
+    final Map<String, String> attrs = new LinkedHashMap<String, String>();
+    attrs.put("name", getTestMethodNameWithParams(delegatedResult));
+    attrs.put("message", "Test timed out after " + timeoutMillis / 1000 + " s");
+    attrs.put("details", threadDump);
+    myPrintStream.println();
+    myPrintStream.println(MapSerializerUtil.asString("testFailed", attrs));
+    onTestFinished(delegatedResult);
+    if (abort && myAbortReason == null) {
+      myAbortReason = myAbortPolicy.getTimeoutAbortReason(getTestMethodNameWithParams(delegatedResult), timeoutMillis);
+      myPrintStream.println("\nAborting run: " + myAbortReason);
+    }
+    else {
+      checkAbort(false);
+    }
+  }
+
+  public synchronized void onProgress(String message) {
+    myPrintStream.println("\n##teamcity[progressMessage \'" + escapeName(message) + "\']");
   }
 
   public synchronized void onTestFailedButWithinSuccessPercentage(ITestResult result) {
@@ -34,6 +34,13 @@ public class RemoteTestNGStarter
 
 	public static void main(String[] args) throws Exception
 	{
+		final String replayLog = System.getProperty(TestNGEventLogReplay.REPLAY_PROPERTY);
+		if(replayLog != null)
+		{
+			System.exit(new TestNGEventLogReplay(System.out).replay(new File(replayLog)));
+			return;
+		}
+
 		int i = 0;
 		String param = null;
 		String commandFileName = null;
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+/**
+ * Decides when a run should stop early. Configured by system properties:
+ * <ul>
+ * <li>{@code consulo.testng.abort.afterFailures} - abort after that many failed tests or configurations</li>
+ * <li>{@code consulo.testng.abort.failureRate} - abort once that percentage of finished tests failed,
+ * checked after {@code consulo.testng.abort.minTests} (20 by default) tests finished</li>
+ * <li>{@code consulo.testng.abort.onConfigFailure} - abort on the first failed configuration method</li>
+ * </ul>
+ */
+public class TestNGAbortPolicy
+{
+	private static final String AFTER_FAILURES_PROPERTY = "consulo.testng.abort.afterFailures";
+	private static final String FAILURE_RATE_PROPERTY = "consulo.testng.abort.failureRate";
+	private static final String MIN_TESTS_PROPERTY = "consulo.testng.abort.minTests";
+	private static final String ON_CONFIG_FAILURE_PROPERTY = "consulo.testng.abort.onConfigFailure";
+
+	private final int myMaxFailures;
+	private final double myMaxFailureRate;
+	private final int myMinTests;
+	private final boolean myOnConfigFailure;
+
+	public TestNGAbortPolicy(int maxFailures, double maxFailureRate, int minTests, boolean onConfigFailure)
+	{
+		myMaxFailures = maxFailures;
+		myMaxFailureRate = maxFailureRate;
+		myMinTests = minTests;
+		myOnConfigFailure = onConfigFailure;
+	}
+
+	public static TestNGAbortPolicy fromSystemProperties()
+	{
+		double failureRate = 0;
+		final String rate = System.getProperty(FAILURE_RATE_PROPERTY);
+		if(rate != null)
+		{
+			try
+			{
+				failureRate = Double.parseDouble(rate);
+			}
+			catch(NumberFormatException e)
+			{
+				System.err.println(FAILURE_RATE_PROPERTY + ": expected number but found: " + rate);
+			}
+		}
+		return new TestNGAbortPolicy(Integer.getInteger(AFTER_FAILURES_PROPERTY, 0).intValue(),
+				failureRate,
+				Integer.getInteger(MIN_TESTS_PROPERTY, 20).intValue(),
+				Boolean.getBoolean(ON_CONFIG_FAILURE_PROPERTY));
+	}
+
+	/**
+	 * @return why the run should be aborted after a failure, or null to continue
+	 */
+	public String getAbortReason(int passed, int failed, boolean configFailure)
+	{
+		if(configFailure && myOnConfigFailure)
+		{
+			return "configuration method failed";
+		}
+		if(myMaxFailures > 0 && failed >= myMaxFailures)
+		{
+			return failed + " failures";
+		}
+		final int finished = passed + failed;
+		if(myMaxFailureRate > 0 && finished >= myMinTests && failed * 100.0 / finished >= myMaxFailureRate)
+		{
+			return "failure rate reached " + (failed * 100 / finished) + "%";
+		}
+		return null;
+	}
+
+	/**
+	 * @return why the run is aborted when the timeout watchdog is configured to abort on a hung test
+	 */
+	public String getTimeoutAbortReason(String testName, long timeoutMillis)
+	{
+		return testName + " timed out after " + timeoutMillis / 1000 + " s";
+	}
+}
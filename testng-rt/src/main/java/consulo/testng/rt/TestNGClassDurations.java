@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.IConfigurationListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulated run time per test class, used to balance classes between shards.
+ * Stored as {@code className<TAB>millis} lines.
+ */
+public class TestNGClassDurations implements ITestListener, IConfigurationListener
+{
+	private final Map<String, Long> myDurations = new HashMap<String, Long>();
+
+	public static Map<String, Long> load(File file)
+	{
+		final Map<String, Long> durations = new HashMap<String, Long>();
+		if(!file.isFile())
+		{
+			return durations;
+		}
+		try
+		{
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+			try
+			{
+				String line;
+				while((line = reader.readLine()) != null)
+				{
+					final int idx = line.indexOf('\t');
+					if(idx > 0)
+					{
+						try
+						{
+							durations.put(line.substring(0, idx), Long.valueOf(line.substring(idx + 1)));
+						}
+						catch(NumberFormatException ignored)
+						{
+						}
+					}
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch(IOException ignored)
+		{
+		}
+		return durations;
+	}
+
+	public static void save(File file, Map<String, Long> durations)
+	{
+		try
+		{
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), "UTF-8"));
+			try
+			{
+				for(Map.Entry<String, Long> entry : durations.entrySet())
+				{
+					writer.write(entry.getKey());
+					writer.write('\t');
+					writer.write(String.valueOf(entry.getValue()));
+					writer.write('\n');
+				}
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		catch(IOException ignored)
+		{
+		}
+	}
+
+	public synchronized Map<String, Long> getDurations()
+	{
+		return new HashMap<String, Long>(myDurations);
+	}
+
+	private synchronized void record(ITestResult result)
+	{
+		final String className = result.getTestClass().getName();
+		final Long duration = myDurations.get(className);
+		final long elapsed = Math.max(0, result.getEndMillis() - result.getStartMillis());
+		myDurations.put(className, duration == null ? elapsed : duration + elapsed);
+	}
+
+	public void onTestStart(ITestResult result)
+	{
+	}
+
+	public void onTestSuccess(ITestResult result)
+	{
+		record(result);
+	}
+
+	public void onTestFailure(ITestResult result)
+	{
+		record(result);
+	}
+
+	public void onTestSkipped(ITestResult result)
+	{
+	}
+
+	public void onTestFailedButWithinSuccessPercentage(ITestResult result)
+	{
+		record(result);
+	}
+
+	public void onStart(ITestContext context)
+	{
+	}
+
+	public void onFinish(ITestContext context)
+	{
+	}
+
+	public void onConfigurationSuccess(ITestResult result)
+	{
+		record(result);
+	}
+
+	public void onConfigurationFailure(ITestResult result)
+	{
+		record(result);
+	}
+
+	public void onConfigurationSkip(ITestResult result)
+	{
+	}
+}
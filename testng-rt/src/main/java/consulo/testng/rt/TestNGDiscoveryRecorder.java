@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Compact store of test discovery traces. Class and method names go into dictionaries and get integer ids, the classes
+ * a test touched are kept as a bitset of class ids. Traces are collected in memory and appended to a memory-mapped file
+ * in one batch per {@link #flush()}, which the listener calls when a suite finishes.
+ * <p>
+ * The file is a sequence of records: a tag byte, then a UTF name for {@link #CLASS_NAME} and {@link #METHOD_NAME}
+ * (ids are assigned in file order), or the test class id, the method id and the bitset words for {@link #TRACE}.
+ * A zero tag ends the file.
+ */
+public class TestNGDiscoveryRecorder
+{
+	static final byte END = 0;
+	static final byte CLASS_NAME = 1;
+	static final byte METHOD_NAME = 2;
+	static final byte TRACE = 3;
+
+	private final File myFile;
+	private final Map<String, Integer> myClassIds = new HashMap<String, Integer>();
+	private final Map<String, Integer> myMethodIds = new HashMap<String, Integer>();
+	private final ByteArrayOutputStream myBatch = new ByteArrayOutputStream();
+	private final DataOutputStream myOut = new DataOutputStream(myBatch);
+	private long myPosition;
+
+	public TestNGDiscoveryRecorder(File file)
+	{
+		myFile = file;
+	}
+
+	public synchronized void record(String className, String methodName, Collection<String> touchedClasses) throws IOException
+	{
+		final int classId = getId(myClassIds, CLASS_NAME, className);
+		final int methodId = getId(myMethodIds, METHOD_NAME, methodName);
+		final BitSet bits = new BitSet();
+		for(String touchedClass : touchedClasses)
+		{
+			bits.set(getId(myClassIds, CLASS_NAME, touchedClass));
+		}
+		final long[] words = new long[(bits.length() + 63) >>> 6];
+		for(int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1))
+		{
+			words[i >>> 6] |= 1L << i;
+		}
+		myOut.writeByte(TRACE);
+		myOut.writeInt(classId);
+		myOut.writeInt(methodId);
+		myOut.writeInt(words.length);
+		for(long word : words)
+		{
+			myOut.writeLong(word);
+		}
+	}
+
+	private int getId(Map<String, Integer> ids, byte tag, String name) throws IOException
+	{
+		Integer id = ids.get(name);
+		if(id == null)
+		{
+			id = ids.size();
+			ids.put(name, id);
+			myOut.writeByte(tag);
+			myOut.writeUTF(name);
+		}
+		return id;
+	}
+
+	/**
+	 * Appends the collected records to the file, overwriting the previous end marker.
+	 */
+	public synchronized void flush() throws IOException
+	{
+		if(myBatch.size() == 0)
+		{
+			return;
+		}
+		myOut.writeByte(END);
+		final byte[] bytes = myBatch.toByteArray();
+		final RandomAccessFile file = new RandomAccessFile(myFile, "rw");
+		try
+		{
+			final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, myPosition, bytes.length);
+			buffer.put(bytes);
+		}
+		finally
+		{
+			file.close();
+		}
+		myPosition += bytes.length - 1;
+		myBatch.reset();
+	}
+
+	/**
+	 * @return touched class names by {@code class,method} test name
+	 */
+	public static Map<String, Set<String>> read(File file) throws IOException
+	{
+		final Map<String, Set<String>> result = new LinkedHashMap<String, Set<String>>();
+		final List<String> classNames = new ArrayList<String>();
+		final List<String> methodNames = new ArrayList<String>();
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			while(true)
+			{
+				final byte tag = in.readByte();
+				if(tag == END)
+				{
+					break;
+				}
+				if(tag == CLASS_NAME)
+				{
+					classNames.add(in.readUTF());
+				}
+				else if(tag == METHOD_NAME)
+				{
+					methodNames.add(in.readUTF());
+				}
+				else if(tag == TRACE)
+				{
+					final String testName = classNames.get(in.readInt()) + "," + methodNames.get(in.readInt());
+					Set<String> touched = result.get(testName);
+					if(touched == null)
+					{
+						touched = new LinkedHashSet<String>();
+						result.put(testName, touched);
+					}
+					final int words = in.readInt();
+					for(int w = 0; w < words; w++)
+					{
+						final long word = in.readLong();
+						for(int bit = 0; bit < 64; bit++)
+						{
+							if((word & (1L << bit)) != 0)
+							{
+								touched.add(classNames.get((w << 6) + bit));
+							}
+						}
+					}
+				}
+				else
+				{
+					throw new IOException("Unknown record " + tag);
+				}
+			}
+		}
+		catch(EOFException ignored)
+		{
+		}
+		finally
+		{
+			in.close();
+		}
+		return result;
+	}
+}
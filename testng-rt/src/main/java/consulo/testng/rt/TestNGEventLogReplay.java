@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Streams a saved event log to the console instead of running tests, so the test tree is rebuilt line by line.
+ * Accepts captured runner output (teamcity messages, copied as is) and {@link TestNGResultArchive} JSON lines,
+ * which are converted to teamcity messages on the fly.
+ */
+public class TestNGEventLogReplay
+{
+	public static final String REPLAY_PROPERTY = "consulo.testng.replay";
+
+	private final PrintStream myOut;
+	private final Set<String> myStarted = new HashSet<String>();
+	private String myCurrentClass;
+
+	public TestNGEventLogReplay(PrintStream out)
+	{
+		myOut = out;
+	}
+
+	public int replay(File file)
+	{
+		try
+		{
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"), 1 << 16);
+			try
+			{
+				myOut.println("##teamcity[enteredTheMatrix]");
+				String line;
+				while((line = reader.readLine()) != null)
+				{
+					if(line.startsWith("{"))
+					{
+						replayJson(parse(line));
+					}
+					else if(!line.contains("##teamcity[enteredTheMatrix]"))
+					{
+						myOut.println(line);
+					}
+				}
+				closeClass();
+			}
+			finally
+			{
+				reader.close();
+				myOut.flush();
+			}
+			return 0;
+		}
+		catch(IOException e)
+		{
+			System.err.println("Unable to replay " + file + ": " + e.getMessage());
+			return -1;
+		}
+	}
+
+	private void replayJson(Map<String, String> event)
+	{
+		final String type = event.get("event");
+		if("testGroupStarted".equals(type))
+		{
+			message("testSuiteStarted", "name", event.get("name"));
+		}
+		else if("testGroupFinished".equals(type))
+		{
+			closeClass();
+			message("testSuiteFinished", "name", event.get("name"));
+		}
+		else if("testStarted".equals(type))
+		{
+			start(event, false);
+		}
+		else if("testFinished".equals(type) || "configurationFinished".equals(type))
+		{
+			final String name = getName(event);
+			if(!myStarted.remove(name))
+			{
+				start(event, "configurationFinished".equals(type));
+				myStarted.remove(name);
+			}
+			final String status = event.get("status");
+			if("failed".equals(status))
+			{
+				final Map<String, String> attrs = new LinkedHashMap<String, String>();
+				attrs.put("name", name);
+				attrs.put("message", event.containsKey("message") ? event.get("message") : "");
+				if(event.containsKey("trace"))
+				{
+					attrs.put("details", event.get("trace"));
+				}
+				myOut.println(MapSerializerUtil.asString("testFailed", attrs));
+			}
+			else if("skipped".equals(status))
+			{
+				message("testIgnored", "name", name);
+			}
+			final Map<String, String> attrs = new LinkedHashMap<String, String>();
+			attrs.put("name", name);
+			if(event.containsKey("duration"))
+			{
+				attrs.put("duration", event.get("duration"));
+			}
+			myOut.println(MapSerializerUtil.asString("testFinished", attrs));
+		}
+	}
+
+	private void start(Map<String, String> event, boolean config)
+	{
+		final String className = event.get("class");
+		if(className != null && !className.equals(myCurrentClass))
+		{
+			closeClass();
+			final Map<String, String> attrs = new LinkedHashMap<String, String>();
+			attrs.put("name", IDEATestNGRemoteListener.getShortName(className));
+			attrs.put("locationHint", "java:suite://" + className);
+			myOut.println(MapSerializerUtil.asString("testSuiteStarted", attrs));
+			myCurrentClass = className;
+		}
+		final String name = getName(event);
+		myStarted.add(name);
+		final Map<String, String> attrs = new LinkedHashMap<String, String>();
+		attrs.put("name", name);
+		attrs.put("locationHint", "java:test://" + className + "." + event.get("method"));
+		if(config)
+		{
+			attrs.put("config", "true");
+		}
+		myOut.println(MapSerializerUtil.asString("testStarted", attrs));
+	}
+
+	private void closeClass()
+	{
+		if(myCurrentClass != null)
+		{
+			message("testSuiteFinished", "name", IDEATestNGRemoteListener.getShortName(myCurrentClass));
+			myCurrentClass = null;
+		}
+	}
+
+	private void message(String type, String key, String value)
+	{
+		final Map<String, String> attrs = new LinkedHashMap<String, String>();
+		attrs.put(key, value != null ? value : "");
+		myOut.println(MapSerializerUtil.asString(type, attrs));
+	}
+
+	private static String getName(Map<String, String> event)
+	{
+		final String className = event.get("class");
+		final String methodName = event.containsKey("name") ? event.get("name") : event.get("method");
+		final String parameters = event.get("parameters");
+		return (className != null ? IDEATestNGRemoteListener.getShortName(className) + "." : "") + methodName + (parameters != null ? parameters : "");
+	}
+
+	/**
+	 * Parses one flat JSON object with string and number values as written by {@link TestNGResultArchive}.
+	 */
+	static Map<String, String> parse(String line)
+	{
+		final Map<String, String> result = new HashMap<String, String>();
+		int i = 1;
+		final int length = line.length();
+		while(i < length)
+		{
+			final int keyStart = line.indexOf('"', i);
+			if(keyStart < 0)
+			{
+				break;
+			}
+			final StringBuilder key = new StringBuilder();
+			i = readString(line, keyStart + 1, key);
+			i = line.indexOf(':', i) + 1;
+			if(i <= 0)
+			{
+				break;
+			}
+			if(line.charAt(i) == '"')
+			{
+				final StringBuilder value = new StringBuilder();
+				i = readString(line, i + 1, value);
+				result.put(key.toString(), value.toString());
+			}
+			else
+			{
+				int end = i;
+				while(end < length && line.charAt(end) != ',' && line.charAt(end) != '}')
+				{
+					end++;
+				}
+				result.put(key.toString(), line.substring(i, end).trim());
+				i = end;
+			}
+			i++;
+		}
+		return result;
+	}
+
+	private static int readString(String line, int i, StringBuilder out)
+	{
+		while(i < line.length())
+		{
+			final char c = line.charAt(i++);
+			if(c == '"')
+			{
+				return i;
+			}
+			if(c != '\\' || i >= line.length())
+			{
+				out.append(c);
+				continue;
+			}
+			final char escaped = line.charAt(i++);
+			switch(escaped)
+			{
+				case 'n':
+					out.append('\n');
+					break;
+				case 'r':
+					out.append('\r');
+					break;
+				case 't':
+					out.append('\t');
+					break;
+				case 'u':
+					out.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+					i += 4;
+					break;
+				default:
+					out.append(escaped);
+			}
+		}
+		return i;
+	}
+}
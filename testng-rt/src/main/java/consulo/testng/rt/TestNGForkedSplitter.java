@@ -17,14 +17,13 @@ package consulo.testng.rt;
 
 import com.intellij.rt.execution.testFrameworks.ForkedByModuleSplitter;
 
-import java.io.File;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.*;
+import java.util.*;
 
 public class TestNGForkedSplitter extends ForkedByModuleSplitter {
-
+  private static final String SHARDS_PROPERTY = "consulo.testng.shards";
+  private static final String COMPONENT_SEPARATOR = "";
+  private static final String SHARED_PREFIX = "*";
 
   public TestNGForkedSplitter(String workingDirsPath, List newArgs) {
     super(workingDirsPath, "none", newArgs);
@@ -48,21 +47,243 @@ public class TestNGForkedSplitter extends ForkedByModuleSplitter {
                                    String workingDir,
                                    String classpath,
                                    String repeatCount, int result) throws Exception {
-    final LinkedHashMap<String, Map<String, List<String>>> classes = new LinkedHashMap<String, Map<String, List<String>>>();
-    for (Object className : classNames) {
-      classes.put((String)className, null);
-    }
-
     String rootPath = null;
     if (!myNewArgs.isEmpty()) {
       rootPath = new File((String)myNewArgs.get(0)).getParent();
     }
 
+    final List<String> shared = new ArrayList<String>();
+    final List<List<String>> components = new ArrayList<List<String>>();
+    parseClassNames(classNames, shared, components);
+
+    final int shardCount = Integer.getInteger(SHARDS_PROPERTY, 1).intValue();
+    if (shardCount <= 1 || components.size() <= 1) {
+      final List<String> all = new ArrayList<String>(shared);
+      for (List<String> component : components) {
+        all.addAll(component);
+      }
+      final File file = writeSuite(all, moduleName, rootPath, "temp-testng-customsuite.xml");
+      return Math.min(result, startChildFork(Collections.singletonList(file.getAbsolutePath()), new File(workingDir), classpath, repeatCount));
+    }
+    return Math.min(result, startShards(moduleName, shared, components, shardCount, rootPath, new File(workingDir), classpath, repeatCount));
+  }
+
+  /**
+   * Runs the classes of one module in parallel forks. Dependent classes stay in one shard, configuration-only
+   * classes are added to every shard, and shards are balanced by the class durations recorded by earlier runs.
+   * All shards report live under one module node; {@link TestNGShardOutputMerger} keeps the events of a class together.
+   */
+  private int startShards(String moduleName,
+                          List<String> shared,
+                          List<List<String>> components,
+                          int shardCount,
+                          String rootPath,
+                          final File workingDir,
+                          final String classpath,
+                          final String repeatCount) throws Exception {
+    final File historyFile = new File(rootPath, "testng-durations-" + Integer.toHexString(moduleName.hashCode()) + ".txt");
+    final Map<String, Long> history = TestNGClassDurations.load(historyFile);
+    final List<List<String>> shards = partition(shared, components, shardCount, history);
+
+    System.out.println("##teamcity[testSuiteStarted name='" + MapSerializerUtil.escapeStr(moduleName, MapSerializerUtil.STD_ESCAPER) + "']");
+    final TestNGShardOutputMerger merger = new TestNGShardOutputMerger(System.out);
+    final int[] results = new int[shards.size()];
+    final File[] durations = new File[shards.size()];
+    final Thread[] threads = new Thread[shards.size()];
+    final Thread[] followers = new Thread[shards.size()];
+    for (int i = 0; i < shards.size(); i++) {
+      final String prefix = "temp-testng-shard" + i;
+      final File suite = writeSuite(shards.get(i), moduleName + " [" + (i + 1) + "/" + shards.size() + "]", rootPath, prefix + ".xml");
+      durations[i] = new File(rootPath, prefix + ".durations");
+      final File output = new File(rootPath, prefix + ".out");
+      output.delete();
+      output.deleteOnExit();
+      final List<String> args = new ArrayList<String>();
+      args.add(TestNGForkedStarter.DURATIONS_PREFIX + durations[i].getAbsolutePath());
+      args.add(TestNGForkedStarter.OUTPUT_PREFIX + output.getAbsolutePath());
+      args.add(suite.getAbsolutePath());
+      final int idx = i;
+      threads[i] = new Thread("TestNG shard " + i) {
+        @Override
+        public void run() {
+          try {
+            results[idx] = startChildFork(args, workingDir, classpath, repeatCount);
+          }
+          catch (Exception e) {
+            e.printStackTrace();
+            results[idx] = -1;
+          }
+        }
+      };
+      followers[i] = new Thread(new OutputFollower(output, threads[i], merger.createShard()), "TestNG shard output " + i);
+      threads[i].start();
+      followers[i].start();
+    }
+
+    int result = 0;
+    for (int i = 0; i < threads.length; i++) {
+      threads[i].join();
+      followers[i].join();
+      history.putAll(TestNGClassDurations.load(durations[i]));
+      durations[i].delete();
+      result = Math.min(result, results[i]);
+    }
+    System.out.println("##teamcity[testSuiteFinished name='" + MapSerializerUtil.escapeStr(moduleName, MapSerializerUtil.STD_ESCAPER) + "']");
+    TestNGClassDurations.save(historyFile, history);
+    return result;
+  }
+
+  /**
+   * Class names are written by the IDE in dependency components separated by {@link #COMPONENT_SEPARATOR};
+   * names starting with {@link #SHARED_PREFIX} are configuration-only classes needed by every fork.
+   */
+  private static void parseClassNames(List classNames, List<String> shared, List<List<String>> components) {
+    List<String> component = new ArrayList<String>();
+    for (Object o : classNames) {
+      final String className = (String)o;
+      if (className.equals(COMPONENT_SEPARATOR)) {
+        if (!component.isEmpty()) {
+          components.add(component);
+          component = new ArrayList<String>();
+        }
+      }
+      else if (className.startsWith(SHARED_PREFIX)) {
+        shared.add(className.substring(SHARED_PREFIX.length()));
+      }
+      else if (className.length() > 0) {
+        component.add(className);
+      }
+    }
+    if (!component.isEmpty()) {
+      components.add(component);
+    }
+  }
+
+  /**
+   * Longest-processing-time-first: heaviest components go to the currently lightest shard.
+   * Classes without recorded duration are weighted with the average of the known ones.
+   */
+  static List<List<String>> partition(List<String> shared, List<List<String>> components, int shardCount, Map<String, Long> durations) {
+    long known = 0;
+    for (Long duration : durations.values()) {
+      known += duration.longValue();
+    }
+    final long defaultDuration = durations.isEmpty() ? 1 : Math.max(1, known / durations.size());
+
+    final List<List<String>> sorted = new ArrayList<List<String>>(components);
+    final Map<List<String>, Long> weights = new IdentityHashMap<List<String>, Long>();
+    for (List<String> component : sorted) {
+      long weight = 0;
+      for (String className : component) {
+        final Long duration = durations.get(className);
+        weight += duration != null ? duration.longValue() : defaultDuration;
+      }
+      weights.put(component, weight);
+    }
+    Collections.sort(sorted, new Comparator<List<String>>() {
+      public int compare(List<String> o1, List<String> o2) {
+        return weights.get(o2).compareTo(weights.get(o1));
+      }
+    });
+
+    final int count = Math.min(shardCount, sorted.size());
+    final List<List<String>> shards = new ArrayList<List<String>>(count);
+    final long[] loads = new long[count];
+    for (int i = 0; i < count; i++) {
+      shards.add(new ArrayList<String>(shared));
+    }
+    for (List<String> component : sorted) {
+      int lightest = 0;
+      for (int i = 1; i < count; i++) {
+        if (loads[i] < loads[lightest]) {
+          lightest = i;
+        }
+      }
+      shards.get(lightest).addAll(component);
+      loads[lightest] += weights.get(component).longValue();
+    }
+    return shards;
+  }
+
+  private static File writeSuite(List<String> classNames, String name, String rootPath, String fileName) {
+    final LinkedHashMap<String, Map<String, List<String>>> classes = new LinkedHashMap<String, Map<String, List<String>>>();
+    for (String className : classNames) {
+      classes.put(className, null);
+    }
     final File file =
-      TestNGXmlSuiteHelper.writeSuite(classes, new LinkedHashMap<String, String>(), moduleName, rootPath, TestNGXmlSuiteHelper.Logger.DEAF);
+      TestNGXmlSuiteHelper.writeSuite(classes, new LinkedHashMap<String, String>(), name, rootPath, fileName, TestNGXmlSuiteHelper.Logger.DEAF);
     file.deleteOnExit();
-
-    return Math.min(result, startChildFork(Collections.singletonList(file.getAbsolutePath()), new File(workingDir), classpath, repeatCount));
+    return file;
   }
 
+  /**
+   * Follows the output file of a running shard and hands complete lines to the merger until the shard has exited.
+   */
+  private static class OutputFollower implements Runnable {
+    private static final long POLL_INTERVAL = 50;
+
+    private final File myFile;
+    private final Thread myShardThread;
+    private final TestNGShardOutputMerger.Shard myShard;
+
+    OutputFollower(File file, Thread shardThread, TestNGShardOutputMerger.Shard shard) {
+      myFile = file;
+      myShardThread = shardThread;
+      myShard = shard;
+    }
+
+    public void run() {
+      final ByteArrayOutputStream line = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[64 * 1024];
+      InputStream stream = null;
+      try {
+        while (true) {
+          final boolean exited = !myShardThread.isAlive();
+          if (stream == null && myFile.exists()) {
+            stream = new FileInputStream(myFile);
+          }
+          int read = stream != null ? stream.read(buffer) : -1;
+          while (read > 0) {
+            for (int i = 0; i < read; i++) {
+              if (buffer[i] == '\n') {
+                myShard.line(toLine(line));
+                line.reset();
+              }
+              else {
+                line.write(buffer[i]);
+              }
+            }
+            read = stream.read(buffer);
+          }
+          if (exited) {
+            break;
+          }
+          Thread.sleep(POLL_INTERVAL);
+        }
+        if (line.size() > 0) {
+          myShard.line(toLine(line));
+        }
+      }
+      catch (Exception e) {
+        e.printStackTrace();
+      }
+      finally {
+        myShard.finished();
+        if (stream != null) {
+          try {
+            stream.close();
+          }
+          catch (IOException ignored) {
+          }
+        }
+        myFile.delete();
+      }
+    }
+
+    private static String toLine(ByteArrayOutputStream line) {
+      final int length = line.size();
+      final byte[] bytes = line.toByteArray();
+      return new String(bytes, 0, length > 0 && bytes[length - 1] == '\r' ? length - 1 : length);
+    }
+  }
 }
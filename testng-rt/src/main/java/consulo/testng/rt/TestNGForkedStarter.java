@@ -18,17 +18,77 @@ package consulo.testng.rt;
 import com.beust.jcommander.JCommander;
 import org.testng.CommandLineArgs;
 
+import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class TestNGForkedStarter
 {
+	static final String OUTPUT_PREFIX = "@output@";
+	static final String DURATIONS_PREFIX = "@durations@";
+
 	public static void main(String[] args) throws Exception
 	{
+		final List<String> testNGArgs = new ArrayList<String>();
+		String durationsPath = null;
+		for(String arg : args)
+		{
+			if(arg.startsWith(OUTPUT_PREFIX))
+			{
+				redirectOutput(new File(arg.substring(OUTPUT_PREFIX.length())));
+			}
+			else if(arg.startsWith(DURATIONS_PREFIX))
+			{
+				durationsPath = arg.substring(DURATIONS_PREFIX.length());
+			}
+			else
+			{
+				testNGArgs.add(arg);
+			}
+		}
+
 		final IDEARemoteTestNG testNG = new IDEARemoteTestNG(null);
 		CommandLineArgs cla = new CommandLineArgs();
-		new JCommander(Arrays.asList(cla), args);
+		new JCommander(Arrays.asList(cla), testNGArgs.toArray(new String[testNGArgs.size()]));
 		testNG.configure(cla);
+		if(durationsPath != null)
+		{
+			recordDurations(testNG, new File(durationsPath));
+		}
 		testNG.run();
 		System.exit(0);
 	}
+
+	/**
+	 * Shards running in parallel write their output into a file, flushed per line, which the parent follows and merges
+	 * with the other shards so that the test tree events of different classes never interleave.
+	 */
+	private static void redirectOutput(File file) throws IOException
+	{
+		final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024), true);
+		System.setOut(out);
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			@Override
+			public void run()
+			{
+				out.flush();
+			}
+		});
+	}
+
+	private static void recordDurations(IDEARemoteTestNG testNG, final File file)
+	{
+		final TestNGClassDurations durations = new TestNGClassDurations();
+		testNG.addRunListener(durations);
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			@Override
+			public void run()
+			{
+				TestNGClassDurations.save(file, durations.getDurations());
+			}
+		});
+	}
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.xml.XmlSuite;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Emits a progress message every {@code consulo.testng.progress.interval} seconds (5 by default, 0 disables it)
+ * while suites run: finished tests, throughput since the previous message, ETA from the mean duration of finished
+ * tests, busy worker threads and heap usage. Messages come from a daemon timer, so they keep coming while a long test
+ * blocks every worker. Counts start over when the first suite of a run starts, so every repeated run is reported
+ * on its own.
+ */
+public class TestNGProgressReporter implements ISuiteListener, ITestListener
+{
+	private static final String INTERVAL_PROPERTY = "consulo.testng.progress.interval";
+
+	private final IDEATestNGRemoteListener myListener;
+	private final long myIntervalMillis;
+	private final Set<Thread> myBusyThreads = new HashSet<Thread>();
+	private int myTotal;
+	private int myWorkers = 1;
+	private int myFinished;
+	private long myFinishedDuration;
+	private long myLastEmitted;
+	private int myLastFinished;
+	private int myActiveSuites;
+	private Timer myTimer;
+
+	public TestNGProgressReporter(IDEATestNGRemoteListener listener, long intervalMillis)
+	{
+		myListener = listener;
+		myIntervalMillis = intervalMillis;
+	}
+
+	/**
+	 * @return reporter, or null when progress messages are disabled
+	 */
+	public static TestNGProgressReporter create(IDEATestNGRemoteListener listener)
+	{
+		final int interval = Integer.getInteger(INTERVAL_PROPERTY, 5).intValue();
+		return interval > 0 ? new TestNGProgressReporter(listener, interval * 1000L) : null;
+	}
+
+	public synchronized void onStart(ISuite suite)
+	{
+		if(myActiveSuites++ > 0)
+		{
+			return;
+		}
+		myTotal = 0;
+		myFinished = 0;
+		myFinishedDuration = 0;
+		myLastFinished = 0;
+		myBusyThreads.clear();
+		myLastEmitted = System.currentTimeMillis();
+		myTimer = new Timer("TestNG progress", true);
+		myTimer.scheduleAtFixedRate(new TimerTask()
+		{
+			@Override
+			public void run()
+			{
+				emit();
+			}
+		}, myIntervalMillis, myIntervalMillis);
+	}
+
+	public synchronized void onFinish(ISuite suite)
+	{
+		if(--myActiveSuites > 0 || myTimer == null)
+		{
+			return;
+		}
+		myTimer.cancel();
+		myTimer = null;
+	}
+
+	public synchronized void onStart(ITestContext context)
+	{
+		for(ITestNGMethod method : context.getAllTestMethods())
+		{
+			myTotal += Math.max(1, method.getInvocationCount());
+		}
+		final XmlSuite xmlSuite = context.getSuite().getXmlSuite();
+		final String parallel = String.valueOf(xmlSuite.getParallel());
+		myWorkers = "none".equalsIgnoreCase(parallel) || "false".equalsIgnoreCase(parallel) ? 1 : Math.max(1, xmlSuite.getThreadCount());
+	}
+
+	public void onFinish(ITestContext context)
+	{
+	}
+
+	public synchronized void onTestStart(ITestResult result)
+	{
+		myBusyThreads.add(Thread.currentThread());
+	}
+
+	public void onTestSuccess(ITestResult result)
+	{
+		onTestFinished(result);
+	}
+
+	public void onTestFailure(ITestResult result)
+	{
+		onTestFinished(result);
+	}
+
+	public void onTestSkipped(ITestResult result)
+	{
+		onTestFinished(result);
+	}
+
+	public void onTestFailedButWithinSuccessPercentage(ITestResult result)
+	{
+		onTestFinished(result);
+	}
+
+	private synchronized void onTestFinished(ITestResult result)
+	{
+		myBusyThreads.remove(Thread.currentThread());
+		myFinished++;
+		myFinishedDuration += Math.max(0, result.getEndMillis() - result.getStartMillis());
+	}
+
+	private synchronized void emit()
+	{
+		if(myTimer == null)
+		{
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		final long elapsed = Math.max(1, now - myLastEmitted);
+
+		final StringBuilder message = new StringBuilder();
+		message.append(myFinished);
+		if(myTotal > 0)
+		{
+			message.append('/').append(myTotal);
+		}
+		message.append(" tests, ").append((myFinished - myLastFinished) * 10000L / elapsed / 10.0).append(" tests/s");
+		final int remaining = myTotal - myFinished;
+		if(remaining > 0 && myFinished > 0)
+		{
+			message.append(", ETA ").append(remaining * (myFinishedDuration / myFinished) / myWorkers / 1000).append(" s");
+		}
+		if(myWorkers > 1)
+		{
+			message.append(", workers ").append(myBusyThreads.size()).append('/').append(myWorkers).append(" busy");
+		}
+		final Runtime runtime = Runtime.getRuntime();
+		message.append(", heap ").append((runtime.totalMemory() - runtime.freeMemory()) >> 20).append('/').append(runtime.maxMemory() >> 20).append(" MB");
+
+		myListener.onProgress(message.toString());
+		myLastEmitted = now;
+		myLastFinished = myFinished;
+	}
+}
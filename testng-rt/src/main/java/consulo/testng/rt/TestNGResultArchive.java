@@ -0,0 +1,318 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.*;
+
+import java.io.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams run events as JSON lines into {@code testng-results-*.jsonl} in the output directory, or in
+ * {@code testng-results} under the temp directory when none is set.
+ * Lines are formatted on the reporting thread and written by a daemon thread through a large buffer; after a write
+ * error the archive stops taking events. Disabled with {@code -Dconsulo.testng.archive=false}.
+ */
+public class TestNGResultArchive implements ISuiteListener, ITestListener, IConfigurationListener, Runnable
+{
+	private static final String ARCHIVE_PROPERTY = "consulo.testng.archive";
+	private static final String END = "";
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final BlockingQueue<String> myQueue = new LinkedBlockingQueue<String>();
+	private final Writer myWriter;
+	private final Thread myThread;
+	private volatile boolean myClosed;
+	private volatile boolean myFailed;
+
+	private TestNGResultArchive(Writer writer)
+	{
+		myWriter = writer;
+		myThread = new Thread(this, "TestNG result archive");
+		myThread.setDaemon(true);
+		myThread.start();
+	}
+
+	/**
+	 * @return started archive, or null when it is disabled or can't be created
+	 */
+	public static TestNGResultArchive create(String outputDirectory)
+	{
+		if("false".equals(System.getProperty(ARCHIVE_PROPERTY)))
+		{
+			return null;
+		}
+		try
+		{
+			final File dir = outputDirectory != null ? new File(outputDirectory) : new File(System.getProperty("java.io.tmpdir"), "testng-results");
+			if(!dir.isDirectory() && !dir.mkdirs())
+			{
+				return null;
+			}
+			final File file = File.createTempFile("testng-results-", ".jsonl", dir);
+			final TestNGResultArchive archive = new TestNGResultArchive(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), BUFFER_SIZE));
+			Runtime.getRuntime().addShutdownHook(new Thread()
+			{
+				@Override
+				public void run()
+				{
+					archive.close();
+				}
+			});
+			return archive;
+		}
+		catch(IOException e)
+		{
+			System.err.println("Unable to create result archive: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public void run()
+	{
+		try
+		{
+			try
+			{
+				while(true)
+				{
+					String line = myQueue.take();
+					if(line == END)
+					{
+						break;
+					}
+					myWriter.write(line);
+					myWriter.write('\n');
+				}
+			}
+			finally
+			{
+				myWriter.close();
+			}
+		}
+		catch(InterruptedException ignored)
+		{
+		}
+		catch(IOException e)
+		{
+			myFailed = true;
+			myQueue.clear();
+			System.err.println("Result archive stopped: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the queued events and closes the file.
+	 */
+	public void close()
+	{
+		if(myClosed)
+		{
+			return;
+		}
+		myClosed = true;
+		myQueue.offer(END);
+		try
+		{
+			myThread.join(TimeUnit.SECONDS.toMillis(30));
+		}
+		catch(InterruptedException ignored)
+		{
+		}
+	}
+
+	public void onStart(ISuite suite)
+	{
+		event("suiteStarted").string("suite", suite.getName()).emit();
+	}
+
+	public void onFinish(ISuite suite)
+	{
+		event("suiteFinished").string("suite", suite.getName()).emit();
+	}
+
+	public void onStart(ITestContext context)
+	{
+		event("testGroupStarted").string("name", context.getName()).emit();
+	}
+
+	public void onFinish(ITestContext context)
+	{
+		event("testGroupFinished").string("name", context.getName())
+				.number("passed", context.getPassedTests().size())
+				.number("failed", context.getFailedTests().size())
+				.number("skipped", context.getSkippedTests().size())
+				.emit();
+	}
+
+	public void onTestStart(ITestResult result)
+	{
+		method(event("testStarted"), result).emit();
+	}
+
+	public void onTestSuccess(ITestResult result)
+	{
+		finished("testFinished", result, "passed");
+	}
+
+	public void onTestFailure(ITestResult result)
+	{
+		finished("testFinished", result, "failed");
+	}
+
+	public void onTestSkipped(ITestResult result)
+	{
+		finished("testFinished", result, "skipped");
+	}
+
+	public void onTestFailedButWithinSuccessPercentage(ITestResult result)
+	{
+		finished("testFinished", result, "passed");
+	}
+
+	public void onConfigurationSuccess(ITestResult result)
+	{
+		finished("configurationFinished", result, "passed");
+	}
+
+	public void onConfigurationFailure(ITestResult result)
+	{
+		finished("configurationFinished", result, "failed");
+	}
+
+	public void onConfigurationSkip(ITestResult result)
+	{
+		finished("configurationFinished", result, "skipped");
+	}
+
+	private void finished(String type, ITestResult result, String status)
+	{
+		final Event event = method(event(type), result)
+				.string("status", status)
+				.number("duration", Math.max(0, result.getEndMillis() - result.getStartMillis()));
+		final Throwable throwable = result.getThrowable();
+		if(throwable != null)
+		{
+			final StringWriter trace = new StringWriter();
+			throwable.printStackTrace(new PrintWriter(trace));
+			event.string("message", throwable.getMessage()).string("trace", trace.toString());
+		}
+		event.emit();
+	}
+
+	private static Event method(Event event, ITestResult result)
+	{
+		final ITestNGMethod method = result.getMethod();
+		event.string("class", method.getTestClass().getName()).string("method", method.getMethodName());
+		final String testName = result.getTestName();
+		if(testName != null && testName.length() > 0)
+		{
+			event.string("name", testName);
+		}
+		final Object[] parameters = result.getParameters();
+		if(parameters != null && parameters.length > 0)
+		{
+			final StringBuilder builder = new StringBuilder("[");
+			for(int i = 0; i < parameters.length; i++)
+			{
+				if(i > 0)
+				{
+					builder.append(", ");
+				}
+				builder.append(String.valueOf(parameters[i]));
+			}
+			event.string("parameters", builder.append(']').toString());
+		}
+		return event.string("thread", Thread.currentThread().getName());
+	}
+
+	private Event event(String type)
+	{
+		return new Event(type);
+	}
+
+	private class Event
+	{
+		private final StringBuilder myBuilder = new StringBuilder(128);
+
+		private Event(String type)
+		{
+			myBuilder.append("{\"event\":\"").append(type).append("\",\"time\":").append(System.currentTimeMillis());
+		}
+
+		private Event number(String key, long value)
+		{
+			myBuilder.append(",\"").append(key).append("\":").append(value);
+			return this;
+		}
+
+		private Event string(String key, String value)
+		{
+			if(value != null)
+			{
+				myBuilder.append(",\"").append(key).append("\":\"");
+				escape(myBuilder, value);
+				myBuilder.append('"');
+			}
+			return this;
+		}
+
+		private void emit()
+		{
+			if(!myClosed && !myFailed)
+			{
+				myQueue.offer(myBuilder.append('}').toString());
+			}
+		}
+	}
+
+	private static void escape(StringBuilder builder, String value)
+	{
+		for(int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+			switch(c)
+			{
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if(c < 0x20)
+					{
+						builder.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						builder.append(c);
+					}
+			}
+		}
+	}
+}
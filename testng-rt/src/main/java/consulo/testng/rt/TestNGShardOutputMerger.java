@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the output of shards running in parallel into one live test tree. Service messages are matched by name,
+ * so events of different classes must not interleave: the shard inside a class suite owns the output, other shards
+ * are held back until it leaves the class and are then written out up to their own class boundary.
+ * <p>
+ * The top level suite every shard opens for its {@code <test>} is dropped; the caller reports the module node once.
+ */
+public class TestNGShardOutputMerger
+{
+	private static final String SUITE_STARTED = "##teamcity[testSuiteStarted ";
+	private static final String SUITE_FINISHED = "##teamcity[testSuiteFinished ";
+
+	private final PrintStream myOut;
+	private final List<Shard> myShards = new ArrayList<Shard>();
+	private Shard myOwner;
+
+	public TestNGShardOutputMerger(PrintStream out)
+	{
+		myOut = out;
+	}
+
+	public synchronized Shard createShard()
+	{
+		final Shard shard = new Shard();
+		myShards.add(shard);
+		return shard;
+	}
+
+	synchronized void onLine(Shard shard, String line)
+	{
+		final boolean started = line.startsWith(SUITE_STARTED);
+		final boolean finished = line.startsWith(SUITE_FINISHED);
+		if(started)
+		{
+			shard.myDepth++;
+		}
+		final boolean topLevel = (started || finished) && shard.myDepth == 1;
+		if(finished && shard.myDepth > 0)
+		{
+			shard.myDepth--;
+		}
+		if(topLevel)
+		{
+			return;
+		}
+		if(myOwner != null && myOwner != shard)
+		{
+			shard.myPending.add(line);
+			return;
+		}
+		myOut.println(line);
+		if(shard.myDepth > 1)
+		{
+			myOwner = shard;
+		}
+		else
+		{
+			myOwner = null;
+			flushPending();
+		}
+	}
+
+	synchronized void onFinished(Shard shard)
+	{
+		shard.myFinished = true;
+		if(myOwner == shard)
+		{
+			myOwner = null;
+		}
+		if(myOwner == null)
+		{
+			flushPending();
+		}
+	}
+
+	/**
+	 * Writes out held back lines shard by shard; a shard left inside a class suite becomes the owner.
+	 */
+	private void flushPending()
+	{
+		for(Shard shard : myShards)
+		{
+			if(shard.myPending.isEmpty())
+			{
+				continue;
+			}
+			for(String line : shard.myPending)
+			{
+				myOut.println(line);
+			}
+			shard.myPending.clear();
+			if(shard.myDepth > 1 && !shard.myFinished)
+			{
+				myOwner = shard;
+				break;
+			}
+		}
+		myOut.flush();
+	}
+
+	public class Shard
+	{
+		private final List<String> myPending = new ArrayList<String>();
+		private int myDepth;
+		private boolean myFinished;
+
+		public void line(String line)
+		{
+			onLine(this, line);
+		}
+
+		public void finished()
+		{
+			onFinished(this);
+		}
+	}
+}
@@ -22,31 +22,151 @@ import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestResult;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports tests to the coverage agent's discovery data and, while the agent is present, records the classes each test
+ * touched through {@link TestNGDiscoveryRecorder} into the file named by {@code -Dconsulo.testng.discovery.file}
+ * (a temp file by default). The recorder is written once per suite.
+ */
 public class TestNGTestDiscoveryListener extends TestDiscoveryListener implements IDEATestNGListener, ISuiteListener
 {
+	private static final String DISCOVERY_FILE_PROPERTY = "consulo.testng.discovery.file";
+	private static final String PROJECT_DATA_CLASS = "com.intellij.rt.coverage.data.TestDiscoveryProjectData";
+
+	private volatile TestNGDiscoveryRecorder myRecorder;
+	private Object myProjectData;
+	private List<Field> myTraceFields;
+
+	public TestNGTestDiscoveryListener()
+	{
+		try
+		{
+			myProjectData = Class.forName(PROJECT_DATA_CLASS).getMethod("getProjectData").invoke(null);
+			myTraceFields = new ArrayList<Field>();
+			for(Class<?> aClass = myProjectData.getClass(); aClass != null; aClass = aClass.getSuperclass())
+			{
+				for(Field field : aClass.getDeclaredFields())
+				{
+					if(Map.class.isAssignableFrom(field.getType()))
+					{
+						field.setAccessible(true);
+						myTraceFields.add(field);
+					}
+				}
+			}
+			final String path = System.getProperty(DISCOVERY_FILE_PROPERTY);
+			final File file = path != null ? new File(path) : File.createTempFile("testng-discovery-", ".bin");
+			myRecorder = new TestNGDiscoveryRecorder(file);
+		}
+		catch(Throwable ignored)
+		{
+			// no coverage agent in this JVM, nothing to record
+		}
+	}
+
 	public void onTestStart(ITestResult result)
 	{
-		testStarted(result.getTestClass().getName(), result.getTestName());
+		testStarted(result.getTestClass().getName(), getMethodName(result));
 	}
 
 	public void onTestSuccess(ITestResult result)
 	{
-		testFinished(result.getTestClass().getName(), result.getName(), true);
+		finished(result, true);
 	}
 
 	public void onTestFailure(ITestResult result)
 	{
-		testFinished(result.getTestClass().getName(), result.getName(), ComparisonFailureData.isAssertionError(result.getThrowable().getClass()));
+		final Throwable throwable = result.getThrowable();
+		finished(result, throwable != null && ComparisonFailureData.isAssertionError(throwable.getClass()));
 	}
 
 	public void onTestSkipped(ITestResult result)
 	{
-		testFinished(result.getTestClass().getName(), result.getName(), false);
+		finished(result, false);
 	}
 
 	public void onTestFailedButWithinSuccessPercentage(ITestResult result)
 	{
-		testFinished(result.getTestClass().getName(), result.getName(), true);
+		finished(result, true);
+	}
+
+	private void finished(ITestResult result, boolean succeed)
+	{
+		final String className = result.getTestClass().getName();
+		final String methodName = getMethodName(result);
+		if(succeed && myRecorder != null)
+		{
+			// read before the agent resets its visited flags for the next test
+			try
+			{
+				myRecorder.record(className, methodName, getTouchedClasses());
+			}
+			catch(Exception e)
+			{
+				disableRecorder(e);
+			}
+		}
+		testFinished(className, methodName, succeed);
+	}
+
+	/**
+	 * @return classes the agent marked as visited since the test started: keys of its class maps with a set flag
+	 */
+	private Collection<String> getTouchedClasses() throws IllegalAccessException
+	{
+		final List<String> result = new ArrayList<String>();
+		for(Field field : myTraceFields)
+		{
+			final Object map = field.get(myProjectData);
+			if(!(map instanceof Map))
+			{
+				continue;
+			}
+			for(Object entry : ((Map<?, ?>) map).entrySet())
+			{
+				final Object key = ((Map.Entry<?, ?>) entry).getKey();
+				final Object value = ((Map.Entry<?, ?>) entry).getValue();
+				if(key instanceof String && value instanceof boolean[] && isVisited((boolean[]) value))
+				{
+					result.add((String) key);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static boolean isVisited(boolean[] flags)
+	{
+		for(boolean flag : flags)
+		{
+			if(flag)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void disableRecorder(Exception e)
+	{
+		System.err.println("Test discovery recording disabled: " + e);
+		myRecorder = null;
+	}
+
+	/**
+	 * Discovery data is looked up by {@code class,method}, so both start and finish must use the method name:
+	 * {@link ITestResult#getTestName()} is the optional {@code ITest} name and may be {@code null}.
+	 */
+	private static String getMethodName(ITestResult result)
+	{
+		return result.getMethod().getMethodName();
 	}
 
 	public void onStart(ITestContext context)
@@ -64,6 +184,17 @@ public class TestNGTestDiscoveryListener extends TestDiscoveryListener implement
 
 	public void onFinish(ISuite suite)
 	{
+		if(myRecorder != null)
+		{
+			try
+			{
+				myRecorder.flush();
+			}
+			catch(IOException e)
+			{
+				disableRecorder(e);
+			}
+		}
 		testRunFinished(suite.getName());
 	}
 
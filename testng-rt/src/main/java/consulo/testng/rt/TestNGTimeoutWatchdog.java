@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports tests running longer than {@code consulo.testng.timeout} seconds (30 minutes by default, 0 disables it)
+ * as failed with a thread dump. {@code consulo.testng.timeout.action} chooses what happens next:
+ * {@code report} (default) lets the test go on, {@code interrupt} interrupts its thread and {@code abort} also aborts
+ * the run, so that the remaining tests are skipped while configuration methods still clean up.
+ * <p>
+ * Tracking costs one map update per test start and finish; the map is scanned by a daemon thread.
+ */
+public class TestNGTimeoutWatchdog implements ITestListener, Runnable
+{
+	private static final String TIMEOUT_PROPERTY = "consulo.testng.timeout";
+	private static final String ACTION_PROPERTY = "consulo.testng.timeout.action";
+	private static final int DEFAULT_TIMEOUT_SECONDS = 30 * 60;
+
+	private final IDEATestNGRemoteListener myListener;
+	private final long myTimeoutMillis;
+	private final String myAction;
+	private final Map<ITestResult, RunningTest> myRunning = new ConcurrentHashMap<ITestResult, RunningTest>();
+
+	public TestNGTimeoutWatchdog(IDEATestNGRemoteListener listener, long timeoutMillis, String action)
+	{
+		myListener = listener;
+		myTimeoutMillis = timeoutMillis;
+		myAction = action;
+	}
+
+	/**
+	 * @return started watchdog, or null when the timeout is disabled
+	 */
+	public static TestNGTimeoutWatchdog start(IDEATestNGRemoteListener listener)
+	{
+		final int timeout = Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SECONDS).intValue();
+		if(timeout <= 0)
+		{
+			return null;
+		}
+		final TestNGTimeoutWatchdog watchdog = new TestNGTimeoutWatchdog(listener, timeout * 1000L, System.getProperty(ACTION_PROPERTY, "report"));
+		final Thread thread = new Thread(watchdog, "TestNG timeout watchdog");
+		thread.setDaemon(true);
+		thread.start();
+		return watchdog;
+	}
+
+	public void run()
+	{
+		final long period = Math.max(100, Math.min(myTimeoutMillis / 4, 10000));
+		try
+		{
+			while(true)
+			{
+				Thread.sleep(period);
+				final long now = System.currentTimeMillis();
+				for(Map.Entry<ITestResult, RunningTest> entry : myRunning.entrySet())
+				{
+					final RunningTest test = entry.getValue();
+					if(!test.myReported && now - test.myStarted >= myTimeoutMillis)
+					{
+						test.myReported = true;
+						onTimeout(entry.getKey(), test.myThread);
+					}
+				}
+			}
+		}
+		catch(InterruptedException ignored)
+		{
+		}
+	}
+
+	private void onTimeout(ITestResult result, Thread thread)
+	{
+		final boolean abort = "abort".equals(myAction);
+		myListener.onTestTimeout(result, myTimeoutMillis, dumpThreads(thread), abort);
+		if(abort || "interrupt".equals(myAction))
+		{
+			thread.interrupt();
+		}
+	}
+
+	private static String dumpThreads(Thread hung)
+	{
+		final StringBuilder builder = new StringBuilder();
+		final Map<Thread, StackTraceElement[]> traces = Thread.getAllStackTraces();
+		dumpThread(builder, hung, traces.get(hung));
+		for(Map.Entry<Thread, StackTraceElement[]> entry : traces.entrySet())
+		{
+			if(entry.getKey() != hung)
+			{
+				dumpThread(builder, entry.getKey(), entry.getValue());
+			}
+		}
+		return builder.toString();
+	}
+
+	private static void dumpThread(StringBuilder builder, Thread thread, StackTraceElement[] trace)
+	{
+		builder.append('"').append(thread.getName()).append("\" ").append(thread.getState()).append('\n');
+		if(trace != null)
+		{
+			for(StackTraceElement element : trace)
+			{
+				builder.append("\tat ").append(element).append('\n');
+			}
+		}
+		builder.append('\n');
+	}
+
+	public void onTestStart(ITestResult result)
+	{
+		myRunning.put(result, new RunningTest(Thread.currentThread(), System.currentTimeMillis()));
+	}
+
+	public void onTestSuccess(ITestResult result)
+	{
+		myRunning.remove(result);
+	}
+
+	public void onTestFailure(ITestResult result)
+	{
+		myRunning.remove(result);
+	}
+
+	public void onTestSkipped(ITestResult result)
+	{
+		myRunning.remove(result);
+	}
+
+	public void onTestFailedButWithinSuccessPercentage(ITestResult result)
+	{
+		myRunning.remove(result);
+	}
+
+	public void onStart(ITestContext context)
+	{
+	}
+
+	public void onFinish(ITestContext context)
+	{
+	}
+
+	private static class RunningTest
+	{
+		private final Thread myThread;
+		private final long myStarted;
+		private volatile boolean myReported;
+
+		private RunningTest(Thread thread, long started)
+		{
+			myThread = thread;
+			myStarted = started;
+		}
+	}
+}
@@ -42,6 +42,15 @@ public class TestNGXmlSuiteHelper {
                                 String name,
                                 String rootPath,
                                 Logger logger) {
+    return writeSuite(map, testParams, name, rootPath, "temp-testng-customsuite.xml", logger);
+  }
+
+  public static File writeSuite(Map<String, Map<String, List<String>>> map,
+                                Map<String, String> testParams,
+                                String name,
+                                String rootPath,
+                                String fileName,
+                                Logger logger) {
     File xmlFile;
     final XmlSuite xmlSuite = new XmlSuite();
     xmlSuite.setParameters(testParams);
@@ -72,7 +81,7 @@ public class TestNGXmlSuiteHelper {
       xmlClasses.add(xmlClass);
     }
     xmlTest.setXmlClasses(xmlClasses);
-    xmlFile = new File(rootPath, "temp-testng-customsuite.xml");
+    xmlFile = new File(rootPath, fileName);
     final String toXml = xmlSuite.toXml();
     writeToFile(logger, xmlFile, toXml);
     return xmlFile;
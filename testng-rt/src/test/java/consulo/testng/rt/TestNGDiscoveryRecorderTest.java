@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.*;
+
+@Test
+public class TestNGDiscoveryRecorderTest
+{
+	public void testBatchesAreAppended() throws Exception
+	{
+		final File file = File.createTempFile("discovery", ".bin");
+		file.deleteOnExit();
+		final TestNGDiscoveryRecorder recorder = new TestNGDiscoveryRecorder(file);
+		recorder.record("a.ATest", "first", Arrays.asList("a.A", "a.B"));
+		recorder.record("a.ATest", "second", Collections.<String>emptyList());
+		recorder.flush();
+
+		final List<String> many = new ArrayList<String>();
+		for(int i = 0; i < 100; i++)
+		{
+			many.add("b.C" + i);
+		}
+		recorder.record("b.BTest", "first", many);
+		recorder.flush();
+
+		final Map<String, Set<String>> traces = TestNGDiscoveryRecorder.read(file);
+		Assert.assertEquals(traces.keySet(), new LinkedHashSet<String>(Arrays.asList("a.ATest,first", "a.ATest,second", "b.BTest,first")));
+		Assert.assertEquals(traces.get("a.ATest,first"), new HashSet<String>(Arrays.asList("a.A", "a.B")));
+		Assert.assertTrue(traces.get("a.ATest,second").isEmpty());
+		Assert.assertEquals(traces.get("b.BTest,first"), new HashSet<String>(many));
+	}
+
+	public void testUnflushedTracesAreNotWritten() throws Exception
+	{
+		final File file = File.createTempFile("discovery", ".bin");
+		file.deleteOnExit();
+		final TestNGDiscoveryRecorder recorder = new TestNGDiscoveryRecorder(file);
+		recorder.record("a.ATest", "first", Collections.singleton("a.A"));
+		recorder.flush();
+		recorder.record("a.ATest", "second", Collections.singleton("a.B"));
+
+		Assert.assertEquals(TestNGDiscoveryRecorder.read(file).keySet(), Collections.singleton("a.ATest,first"));
+	}
+}
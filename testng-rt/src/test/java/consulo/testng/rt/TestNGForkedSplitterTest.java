@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+public class TestNGForkedSplitterTest
+{
+	public void testHeaviestComponentsAreSpread()
+	{
+		final Map<String, Long> durations = new HashMap<String, Long>();
+		durations.put("A", 100L);
+		durations.put("B", 60L);
+		durations.put("C", 50L);
+		durations.put("D", 10L);
+		final List<List<String>> shards = TestNGForkedSplitter.partition(Collections.<String>emptyList(),
+				Arrays.asList(Collections.singletonList("D"), Collections.singletonList("C"), Collections.singletonList("B"), Collections.singletonList("A")), 2, durations);
+		Assert.assertEquals(shards, Arrays.asList(Arrays.asList("A", "D"), Arrays.asList("B", "C")));
+	}
+
+	public void testComponentsStayTogetherAndSharedClassesAreEverywhere()
+	{
+		final List<List<String>> shards = TestNGForkedSplitter.partition(Collections.singletonList("Config"),
+				Arrays.asList(Arrays.asList("A", "A2"), Collections.singletonList("B")), 3, Collections.<String, Long>emptyMap());
+		Assert.assertEquals(shards.size(), 2);
+		Assert.assertEquals(shards.get(0), Arrays.asList("Config", "A", "A2"));
+		Assert.assertEquals(shards.get(1), Arrays.asList("Config", "B"));
+	}
+
+	public void testUnknownClassesWeighTheAverage()
+	{
+		final Map<String, Long> durations = new HashMap<String, Long>();
+		durations.put("A", 30L);
+		durations.put("B", 10L);
+		final List<List<String>> shards = TestNGForkedSplitter.partition(Collections.<String>emptyList(),
+				Arrays.asList(Collections.singletonList("A"), Arrays.asList("X", "Y"), Collections.singletonList("B")), 2, durations);
+		Assert.assertEquals(shards, Arrays.asList(Arrays.asList("X", "Y"), Arrays.asList("A", "B")));
+	}
+}
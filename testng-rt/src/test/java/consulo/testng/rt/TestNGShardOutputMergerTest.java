@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2025 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package consulo.testng.rt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+@Test
+public class TestNGShardOutputMergerTest
+{
+	public void testClassesDoNotInterleave()
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final TestNGShardOutputMerger merger = new TestNGShardOutputMerger(new PrintStream(bytes, true));
+		final TestNGShardOutputMerger.Shard first = merger.createShard();
+		final TestNGShardOutputMerger.Shard second = merger.createShard();
+
+		first.line("##teamcity[testSuiteStarted name='m |[1/2|]']");
+		second.line("##teamcity[testSuiteStarted name='m |[2/2|]']");
+		first.line("##teamcity[testSuiteStarted name='A']");
+		second.line("##teamcity[testSuiteStarted name='B']");
+		first.line("##teamcity[testStarted name='A.a']");
+		second.line("##teamcity[testStarted name='B.b']");
+		second.line("##teamcity[testFinished name='B.b']");
+		first.line("##teamcity[testFinished name='A.a']");
+		first.line("##teamcity[testSuiteFinished name='A']");
+		first.line("##teamcity[testSuiteStarted name='C']");
+		second.line("##teamcity[testSuiteFinished name='B']");
+		second.line("##teamcity[testSuiteFinished name='m |[2/2|]']");
+		second.finished();
+		first.line("##teamcity[testSuiteFinished name='C']");
+		first.line("##teamcity[testSuiteFinished name='m |[1/2|]']");
+		first.finished();
+
+		final List<String> expected = Arrays.asList(
+				"##teamcity[testSuiteStarted name='A']",
+				"##teamcity[testStarted name='A.a']",
+				"##teamcity[testFinished name='A.a']",
+				"##teamcity[testSuiteFinished name='A']",
+				"##teamcity[testSuiteStarted name='B']",
+				"##teamcity[testStarted name='B.b']",
+				"##teamcity[testFinished name='B.b']",
+				"##teamcity[testSuiteFinished name='B']",
+				"##teamcity[testSuiteStarted name='C']",
+				"##teamcity[testSuiteFinished name='C']");
+		Assert.assertEquals(Arrays.asList(bytes.toString().split("\\r?\\n")), expected);
+	}
+
+	public void testCrashedShardReleasesTheOutput()
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final TestNGShardOutputMerger merger = new TestNGShardOutputMerger(new PrintStream(bytes, true));
+		final TestNGShardOutputMerger.Shard first = merger.createShard();
+		final TestNGShardOutputMerger.Shard second = merger.createShard();
+
+		first.line("##teamcity[testSuiteStarted name='m']");
+		first.line("##teamcity[testSuiteStarted name='A']");
+		second.line("##teamcity[testSuiteStarted name='m']");
+		second.line("out");
+		first.finished();
+
+		Assert.assertEquals(Arrays.asList(bytes.toString().split("\\r?\\n")), Arrays.asList("##teamcity[testSuiteStarted name='A']", "out"));
+	}
+}